@@ -29,6 +29,13 @@ public class DetailedPerformanceTest {
         buffer2.start();
     }
 
+    // 每轮迭代都会起一个新的 ActorBuffer 线程，不停掉的话会一直留着和后面的基准线程抢 CPU
+    @TearDown(Level.Iteration)
+    public void tearDown() throws InterruptedException {
+        buffer2.shutdown();
+        buffer2.join();
+    }
+
 
     @Benchmark
     @Threads(1)
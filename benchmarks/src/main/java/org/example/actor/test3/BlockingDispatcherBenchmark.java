@@ -0,0 +1,86 @@
+package org.example.actor.test3;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 阻塞型负载下 DefaultDispatcher 和 VirtualThreadDispatcher 的对比
+ * 每次调用给 actors 个 actor 各发一条消息，每个 actor 在 receive 里阻塞 blockMillis 毫秒（模拟 I/O），测全部处理完的耗时
+ * 固定 8 个平台线程时耗时约为 actors / 8 * blockMillis；虚拟线程下阻塞互不影响，耗时应接近 blockMillis
+ * 运行环境不支持虚拟线程时 virtual 会退回平台线程池，结果会和 default 接近
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BlockingDispatcherBenchmark {
+
+    @Param({"default", "virtual"})
+    public String dispatcher;
+
+    @Param({"64", "512"})
+    public int actors;
+
+    @Param({"1"})
+    public int blockMillis;
+
+    private ActorSystem system;
+    private ActorRef[] refs;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = new ActorSystem("virtual".equals(dispatcher)
+                ? new VirtualThreadDispatcher() : new DefaultDispatcher());
+        refs = new ActorRef[actors];
+        for (int i = 0; i < actors; i++) {
+            refs[i] = system.register("blocking-" + i, new BlockingActor(blockMillis));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.terminate(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void fanOutBlocking() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(refs.length);
+        for (ActorRef ref : refs) {
+            ref.tell(done, null);
+        }
+        done.await();
+    }
+
+    static class BlockingActor extends Actor {
+        private final long blockMillis;
+
+        BlockingActor(long blockMillis) {
+            this.blockMillis = blockMillis;
+        }
+
+        @Override
+        public void receive(Message message) {
+            try {
+                Thread.sleep(blockMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ((CountDownLatch) message.payload).countDown();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(BlockingDispatcherBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
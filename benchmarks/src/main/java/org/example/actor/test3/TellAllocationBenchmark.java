@@ -0,0 +1,94 @@
+package org.example.actor.test3;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * tell 路径的分配对比，主要看 GC profiler 输出的 gc.alloc.rate.norm（每次 tell 分配的字节数）
+ * default: 原来的路径，每次 tell 都 new 一个 Message，MpscLinkedMailbox 再 new 一个链表节点
+ * pooled:  信封来自 MessagePool，信箱是预分配的 BoundedMailbox，稳定后每次 tell 应该是 0 字节
+ * default 的链表信箱无界，发送比处理快时积压超过 MAX_BACKLOG 就让发送线程等消费者追上来，否则几轮测量下来会把堆撑爆
+ *
+ * 运行：main 方法，或者 java -jar benchmarks/target/benchmarks.jar TellAllocationBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TellAllocationBenchmark {
+    private static final String PAYLOAD = "add";
+    private static final int MAX_BACKLOG = 1 << 16;
+
+    @Param({"default", "pooled"})
+    public String mode;
+
+    private ActorSystem system;
+    private ActorRef ref;
+    private boolean unbounded;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = new ActorSystem(new DefaultDispatcher());
+        CountingActor actor = new CountingActor();
+        if ("pooled".equals(mode)) {
+            actor.setMessagePooling(true);
+            // 信箱容量不超过信封池容量，在途信封总能回到池子里；BLOCK 保证不会因为丢弃而额外分配
+            ref = system.register("counter", actor, () -> new BoundedMailbox(1024, OverflowStrategy.BLOCK));
+        } else {
+            ref = system.register("counter", actor);
+            unbounded = true;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.terminate(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void tell_1_thread() {
+        tell();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void tell_4_threads() {
+        tell();
+    }
+
+    private void tell() {
+        ref.tell(PAYLOAD, null);
+        // 链表信箱的 size 是计数器相减，不分配对象，不影响 gc.alloc.rate.norm
+        if (unbounded && ref.mailboxSize() > MAX_BACKLOG) {
+            while (ref.mailboxSize() > MAX_BACKLOG / 2) {
+                Thread.yield();
+            }
+        }
+    }
+
+    static class CountingActor extends Actor {
+        private long count;
+
+        @Override
+        public void receive(Message message) {
+            count++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(TellAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.benchmark;
+
+import org.example.actor.MessageType;
+import org.example.actor.test3.BufferActor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一个负载（BATCH 条 Product 消息，一个发送方）在 test1 ~ test4 四代实现上的吞吐
+ * test1 / test2 每个 actor 一个线程，没有完成信号，以队列被取空为结束（最后一条可能还在执行，差一条可以忽略）
+ * test3 用 awaitIdle；test4 在最后 ask 一次，信箱是 FIFO，拿到应答时前面的消息都处理完了
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ActorGenerationsBenchmark {
+
+    @Param({"test1", "test2", "test3", "test4"})
+    public String generation;
+
+    private org.example.actor.test1.ActorBuffer test1;
+    private org.example.actor.test1.Message test1Message;
+
+    private org.example.actor.test2.Buffer test2;
+    private org.example.actor.test2.Actor test2Sender;
+    private org.example.actor.test2.Message<Void> test2Message;
+
+    private org.example.actor.test3.ActorSystem test3System;
+    private org.example.actor.test3.ActorRef test3;
+
+    private ExecutorService test4Pool;
+    private org.example.actor.test4.ActorRef test4;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        switch (generation) {
+            case "test1":
+                test1 = new org.example.actor.test1.ActorBuffer();
+                test1.setDaemon(true);
+                test1.start();
+                test1Message = new org.example.actor.test1.Message();
+                test1Message.setType(MessageType.PRODUCT_ID);
+                break;
+            case "test2":
+                test2 = new org.example.actor.test2.Buffer();
+                test2.setDaemon(true);  // test2 的 actor 没有停止的办法
+                test2.start();
+                test2Sender = new org.example.actor.test2.Actor();
+                test2Message = new org.example.actor.test2.Message<>();
+                test2Message.setType(MessageType.PRODUCT_ID);
+                test2Message.setValue(1);
+                break;
+            case "test3":
+                test3System = new org.example.actor.test3.ActorSystem(BenchmarkSupport.dispatcher("default"));
+                test3 = test3System.register("buffer", new BufferActor());
+                break;
+            case "test4":
+                // test4 的 DefaultDispatcher 关不掉，换一个守护线程的池，基准结束时能退出
+                test4Pool = Executors.newFixedThreadPool(8, r -> {
+                    Thread t = new Thread(r, "test4-dispatcher");
+                    t.setDaemon(true);
+                    return t;
+                });
+                org.example.actor.test4.ActorSystem system = new org.example.actor.test4.ActorSystem(actor -> test4Pool.execute(actor));
+                test4 = system.register("buffer", new Test4Counter());
+                break;
+            default:
+                throw new IllegalArgumentException("unknown generation: " + generation);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (test1 != null) {
+            test1.shutdown();
+        }
+        BenchmarkSupport.terminate(test3System);
+        if (test4Pool != null) {
+            test4Pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkSupport.BATCH)
+    public void tell() throws Exception {
+        switch (generation) {
+            case "test1":
+                for (int i = 0; i < BenchmarkSupport.BATCH; i++) {
+                    test1.send(test1Message);
+                }
+                while (!test1.queue.isEmpty()) {
+                    Thread.yield();
+                }
+                break;
+            case "test2":
+                for (int i = 0; i < BenchmarkSupport.BATCH; i++) {
+                    test2Sender.send(test2, test2Message);
+                }
+                while (!test2.queue.isEmpty()) {
+                    Thread.yield();
+                }
+                break;
+            case "test3":
+                for (int i = 0; i < BenchmarkSupport.BATCH; i++) {
+                    test3.tell(MessageType.Product, 1, null);
+                }
+                BenchmarkSupport.awaitIdle(test3System);
+                break;
+            default:
+                for (int i = 0; i < BenchmarkSupport.BATCH; i++) {
+                    test4.tell(MessageType.Product, 1, null);
+                }
+                test4.ask(Test4Counter.DONE, null).get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    // CrashActor 每条消息都打印一行，这里换成只计数的 actor
+    static final class Test4Counter extends org.example.actor.test4.Actor {
+        static final Object DONE = new Object();
+
+        private long count;
+
+        @Override
+        public void receive(org.example.actor.test4.Message message) {
+            count++;
+            if (message.payload == DONE) {
+                message.future.complete(count);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.benchmark;
+
+import org.example.actor.MessageType;
+import org.example.actor.test3.ActorRef;
+import org.example.actor.test3.ActorSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一问一答的往返延迟分布（SampleTime 模式会给出 p50 / p99 / p99.9）
+ * ask:     CompletableFuture 应答
+ * request: 预分配的应答槽位，调用方自旋后 park
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AskLatencyBenchmark {
+
+    @Param({"default", "ringBuffer", "workStealing"})
+    public String dispatcher;
+
+    private ActorSystem system;
+    private ActorRef ref;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = new ActorSystem(BenchmarkSupport.dispatcher(dispatcher));
+        ref = system.register("counter", new BenchmarkSupport.CountingActor());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.terminate(system);
+    }
+
+    @Benchmark
+    public Object ask() throws Exception {
+        return ref.ask(MessageType.Query, 0, null).get(1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public Object request() throws Exception {
+        return ref.request(MessageType.Query, 0, null, 1, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object request_4_threads() throws Exception {
+        return ref.request(MessageType.Query, 0, null, 1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 跑 org.example.benchmark 下的基准，默认挂上 GC profiler（gc.alloc.rate.norm 就是每次操作分配的字节数）
+ * 命令行参数和 JMH 自己的一样，比如只跑某一个、改迭代次数：
+ *   java -cp benchmarks/target/benchmarks.jar org.example.benchmark.BenchmarkMain TellThroughput -wi 1 -i 3
+ * 也可以直接 java -jar benchmarks/target/benchmarks.jar（JMH 自带的入口，要 GC 数据时加 -prof gc）
+ * 打包：先 mvn install 装好主工程，再 mvn -f benchmarks/pom.xml package
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(BenchmarkMain.class.getPackage().getName() + ".*");
+        }
+        Options options = builder.parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,108 @@
+package org.example.benchmark;
+
+import org.example.actor.MessageType;
+import org.example.actor.test3.Actor;
+import org.example.actor.test3.ActorRef;
+import org.example.actor.test3.ActorSystem;
+import org.example.actor.test3.ArrayMailbox;
+import org.example.actor.test3.BoundedMailbox;
+import org.example.actor.test3.DefaultDispatcher;
+import org.example.actor.test3.Dispatcher;
+import org.example.actor.test3.Mailbox;
+import org.example.actor.test3.Message;
+import org.example.actor.test3.MpscLinkedMailbox;
+import org.example.actor.test3.OverflowStrategy;
+import org.example.actor.test3.RingBufferDispatcher;
+import org.example.actor.test3.VirtualThreadDispatcher;
+import org.example.actor.test3.WaitStrategy;
+import org.example.actor.test3.WorkStealingDispatcher;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/***
+ *  各个基准共用的工厂：@Param 里写名字，这里换成对应的 dispatcher / 信箱
+ *  有界信箱统一用 BLOCK 策略，发送方被背压而不是丢消息，保证每次调用处理的消息数是确定的
+ */
+final class BenchmarkSupport {
+
+    // 每次基准调用发这么多条消息，然后 awaitIdle 等它们全部处理完；信箱积压不会超过它
+    static final int BATCH = 10_000;
+    static final int MAILBOX_CAPACITY = 4096;
+
+    private BenchmarkSupport() {
+    }
+
+    static Dispatcher dispatcher(String name) {
+        switch (name) {
+            case "default":
+                return new DefaultDispatcher();
+            case "ringBuffer":
+                return new RingBufferDispatcher(WaitStrategy.parking());
+            case "workStealing":
+                return new WorkStealingDispatcher();
+            case "virtual":
+                return new VirtualThreadDispatcher();
+            default:
+                throw new IllegalArgumentException("unknown dispatcher: " + name);
+        }
+    }
+
+    static Supplier<Mailbox> mailbox(String name) {
+        switch (name) {
+            case "mpsc":
+                return MpscLinkedMailbox::new;
+            case "array":
+                // 容量大于一批消息，不会满；满了 tell 会悄悄丢消息，awaitIdle 测不出来
+                return () -> new ArrayMailbox(2 * BATCH);
+            case "bounded":
+                return () -> new BoundedMailbox(MAILBOX_CAPACITY, OverflowStrategy.BLOCK);
+            default:
+                throw new IllegalArgumentException("unknown mailbox: " + name);
+        }
+    }
+
+    // 每个基准结束时都要调用，否则线程和积压的消息会带到下一组参数里
+    static void terminate(ActorSystem system) {
+        if (system != null) {
+            system.terminate(5, TimeUnit.SECONDS);
+        }
+    }
+
+    static void awaitIdle(ActorSystem system) throws InterruptedException {
+        if (!system.awaitIdle(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("actors did not go idle within 30s");
+        }
+    }
+
+    /**
+     * 只计数的 actor，receive 几乎没有开销，测出来的就是框架本身的成本
+     */
+    static final class CountingActor extends Actor {
+        long count;
+
+        @Override
+        public void receive(Message message) {
+            count++;
+            if (message.expectsReply()) {
+                message.reply(count);
+            }
+        }
+    }
+
+    /**
+     * 把收到的消息转给下一个 actor，用来搭扇入
+     */
+    static final class ForwardingActor extends Actor {
+        private final ActorRef next;
+
+        ForwardingActor(ActorRef next) {
+            this.next = next;
+        }
+
+        @Override
+        public void receive(Message message) {
+            next.tell(MessageType.Product, message.value, null);
+        }
+    }
+}
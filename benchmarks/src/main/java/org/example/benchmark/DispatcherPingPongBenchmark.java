@@ -0,0 +1,78 @@
+package org.example.benchmark;
+
+import org.example.actor.MessageType;
+import org.example.actor.test3.Actor;
+import org.example.actor.test3.ActorRef;
+import org.example.actor.test3.ActorSystem;
+import org.example.actor.test3.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 两个 actor 之间来回传一条消息，每一跳都要把对方从 IDLE 调度起来，测的是 dispatcher 交接一次 actor 的成本
+ * 信箱里永远只有一条消息，批处理、吞吐配额都帮不上忙，各 dispatcher 的差别最直接
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DispatcherPingPongBenchmark {
+
+    private static final int HOPS = 1000;
+
+    @Param({"default", "ringBuffer", "workStealing", "virtual"})
+    public String dispatcher;
+
+    private ActorSystem system;
+    private PingPongActor ping;
+    private ActorRef pingRef;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = new ActorSystem(BenchmarkSupport.dispatcher(dispatcher));
+        ping = new PingPongActor();
+        PingPongActor pong = new PingPongActor();
+        pingRef = system.register("ping", ping);
+        ActorRef pongRef = system.register("pong", pong);
+        ping.peer = pongRef;
+        pong.peer = pingRef;
+        pong.done = ping.done;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.terminate(system);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(HOPS)
+    public void pingPong() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        ping.done.latch = done;
+        pingRef.tell(MessageType.Product, HOPS, null);
+        done.await();
+    }
+
+    // 两个 actor 共用，谁收到最后一跳谁放行
+    static final class Done {
+        volatile CountDownLatch latch;
+    }
+
+    static final class PingPongActor extends Actor {
+        ActorRef peer;
+        Done done = new Done();
+
+        @Override
+        public void receive(Message message) {
+            if (message.value <= 1) {
+                done.latch.countDown();
+            } else {
+                peer.tell(MessageType.Product, message.value - 1, null);
+            }
+        }
+    }
+}
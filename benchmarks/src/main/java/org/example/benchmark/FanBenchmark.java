@@ -0,0 +1,67 @@
+package org.example.benchmark;
+
+import org.example.actor.MessageType;
+import org.example.actor.test3.ActorRef;
+import org.example.actor.test3.ActorSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 扇出：一个发送方把 BATCH 条消息轮流发给 actors 个 actor，看 dispatcher 能不能把它们并行跑起来
+ * 扇入：BATCH 条消息分给 actors 个转发 actor，它们都转给同一个 sink，看多个生产者写同一个信箱时的争用
+ * 都以 awaitIdle 为结束，分数按消息条数计
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FanBenchmark {
+
+    @Param({"default", "ringBuffer", "workStealing"})
+    public String dispatcher;
+
+    @Param({"4", "64"})
+    public int actors;
+
+    private ActorSystem system;
+    private ActorRef[] workers;
+    private ActorRef[] forwarders;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = new ActorSystem(BenchmarkSupport.dispatcher(dispatcher));
+        workers = new ActorRef[actors];
+        forwarders = new ActorRef[actors];
+        ActorRef sink = system.register("sink", new BenchmarkSupport.CountingActor());
+        for (int i = 0; i < actors; i++) {
+            workers[i] = system.register("worker-" + i, new BenchmarkSupport.CountingActor());
+            forwarders[i] = system.register("forwarder-" + i, new BenchmarkSupport.ForwardingActor(sink));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.terminate(system);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkSupport.BATCH)
+    public void fanOut() throws InterruptedException {
+        for (int i = 0; i < BenchmarkSupport.BATCH; i++) {
+            workers[i % workers.length].tell(MessageType.Product, i, null);
+        }
+        BenchmarkSupport.awaitIdle(system);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkSupport.BATCH)
+    public void fanIn() throws InterruptedException {
+        for (int i = 0; i < BenchmarkSupport.BATCH; i++) {
+            forwarders[i % forwarders.length].tell(MessageType.Product, i, null);
+        }
+        BenchmarkSupport.awaitIdle(system);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.benchmark;
+
+import org.example.log.Logger;
+import org.example.memory.HeapMemory;
+import org.example.memory.ObjectInstance;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟堆的两个热点操作
+ * allocateInEden: Eden 用满后（返回 null）换一个新堆继续分配，换堆的成本摊在几十万次分配里
+ * performGC:      每次调用前（Level.Invocation）重建一个装了 objects 个对象的堆，其中每 10 个有一个是根、并引用下一个对象，约 20% 存活；
+ *                 对象数小的时候准备工作会占大头，JMH 对 Level.Invocation 的误差提示可以参考这一点
+ * GC 日志是 INFO 级别，每次回收都会打一行，测量期间把日志级别调到 WARN
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HeapMemoryBenchmark {
+
+    private static final int EDEN_SIZE = 16 * 1024 * 1024;
+    private static final int OLD_SIZE = 16 * 1024 * 1024;
+    private static final int GC_OBJECT_SIZE = 64;
+
+    @State(Scope.Thread)
+    public static class AllocationState {
+        @Param({"16", "256"})
+        public int objectSize;
+
+        HeapMemory heap;
+        private org.example.log.Level previousLevel;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            previousLevel = Logger.getLevel();
+            Logger.setLevel(org.example.log.Level.WARN);
+            heap = new HeapMemory(EDEN_SIZE, OLD_SIZE);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            Logger.setLevel(previousLevel);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class GcState {
+        @Param({"1000", "10000"})
+        public int objects;
+
+        HeapMemory heap;
+        private org.example.log.Level previousLevel;
+
+        @Setup(Level.Trial)
+        public void silenceLog() {
+            previousLevel = Logger.getLevel();
+            Logger.setLevel(org.example.log.Level.WARN);
+        }
+
+        @Setup(Level.Invocation)
+        public void fillHeap() {
+            // 堆按对象数分配，每次调用前都 new 两个 16MB 的数组会让 JVM 自己的 GC 落进测量
+            int size = objects * GC_OBJECT_SIZE * 2;
+            heap = new HeapMemory(size, size);
+            ObjectInstance previousRoot = null;
+            for (int i = 0; i < objects; i++) {
+                ObjectInstance obj = heap.allocateInEden(GC_OBJECT_SIZE);
+                if (previousRoot != null) {
+                    previousRoot.addReference(obj);
+                    previousRoot = null;
+                }
+                if (i % 10 == 0) {
+                    heap.addRoot(obj);
+                    previousRoot = obj;
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            Logger.setLevel(previousLevel);
+        }
+    }
+
+    @Benchmark
+    public ObjectInstance allocateInEden(AllocationState state) {
+        ObjectInstance obj = state.heap.allocateInEden(state.objectSize);
+        if (obj == null) {
+            state.heap = new HeapMemory(EDEN_SIZE, OLD_SIZE);
+            obj = state.heap.allocateInEden(state.objectSize);
+        }
+        return obj;
+    }
+
+    @Benchmark
+    public HeapMemory performGC(GcState state) {
+        state.heap.performGC();
+        return state.heap;
+    }
+}
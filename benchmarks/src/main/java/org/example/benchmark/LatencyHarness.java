@@ -0,0 +1,244 @@
+package org.example.benchmark;
+
+import org.example.actor.LatencyHistogram;
+import org.example.actor.MessageType;
+import org.example.actor.test3.Actor;
+import org.example.actor.test3.ActorRef;
+import org.example.actor.test3.ActorSystem;
+import org.example.actor.test3.Message;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+
+/***
+ *  定速压测：按固定到达率向 ActorRef 发消息，逐级加压，看每个 dispatcher 在哪个速率上开始跟不上（饱和拐点）
+ *  tell：消息的 value 里放"计划发送时刻"，receive 时记 now - 计划时刻；发送方落后造成的排队也算进延迟，开环发送不会有协调遗漏
+ *  ask：一次只有一个请求在途，往返超过发送间隔就耽误了后面的请求，用 recordWithExpectedInterval 把它们补记进来；未修正的分布也留着作对照
+ *  JMH 的 SampleTime 是闭环测法，压力由被测对象决定，测不出固定负载下的排队，所以单独写了这个入口：
+ *    java -cp benchmarks/target/benchmarks.jar org.example.benchmark.LatencyHarness dispatchers=default,ringBuffer rates=1000,10000,100000 duration=5 warmup=2 out=target/latency
+ *  结果打印在控制台，同时写到 out 目录：latency.csv、latency.json，以及每组测量一个 .hgrm 百分位分布文件
+ */
+public class LatencyHarness {
+
+    // 实际完成速率低于目标的这个比例就算饱和
+    static final double SATURATION_THRESHOLD = 0.95;
+    // 剩余等待时间超过它就 park，不到就 yield；Linux 上 parkNanos 通常会多睡几十微秒
+    private static final long PARK_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long DRAIN_TIMEOUT_SECONDS = 30;
+    private static final long ASK_TIMEOUT_MILLIS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String[] dispatchers = options.getOrDefault("dispatchers", "default,ringBuffer,workStealing,virtual").split(",");
+        String[] rates = options.getOrDefault("rates", "1000,10000,50000,100000,200000").split(",");
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("warmup", "1")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("duration", "3")));
+        File out = new File(options.getOrDefault("out", "target/latency"));
+
+        List<Result> results = new ArrayList<>();
+        LatencyReport.printHeader(System.out);
+        for (String dispatcher : dispatchers) {
+            // 低速档的预热消息太少，JIT 还没编译完第一档就开测了；先按最高档空跑一轮，结果丢掉
+            run(dispatcher, max(rates), warmupNanos, warmupNanos);
+            for (String rate : rates) {
+                Result result = run(dispatcher, Long.parseLong(rate), warmupNanos, durationNanos);
+                LatencyReport.printRow(System.out, result);
+                results.add(result);
+            }
+        }
+        LatencyReport.printKnees(System.out, results);
+        write(out, results);
+    }
+
+    static Result run(String dispatcher, long rate, long warmupNanos, long durationNanos) throws InterruptedException {
+        if (rate <= 0 || rate > TimeUnit.SECONDS.toNanos(1)) {
+            throw new IllegalArgumentException("rate must be between 1 and 1e9 per second: " + rate);
+        }
+        Result result = new Result(dispatcher, rate);
+        measureTell(result, warmupNanos, durationNanos);
+        measureAsk(result, warmupNanos, durationNanos);
+        return result;
+    }
+
+    private static void measureTell(Result result, long warmupNanos, long durationNanos) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        ActorSystem system = new ActorSystem(BenchmarkSupport.dispatcher(result.dispatcher));
+        try {
+            ActorRef ref = system.register("latency", new TimestampActor(latency));
+            long interval = result.intervalNanos();
+            tellAtRate(ref, interval, warmupNanos);
+            system.awaitIdle(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            latency.reset();
+
+            long start = System.nanoTime();
+            tellAtRate(ref, interval, durationNanos);
+            // 积压的消息也要处理完才算数，饱和时这段排空时间会把完成速率拉低
+            result.drained = system.awaitIdle(DRAIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            long elapsed = System.nanoTime() - start;
+            LatencyHistogram.Snapshot snapshot = latency.snapshot();
+            result.tellRate = snapshot.getTotalCount() * 1e9 / elapsed;
+            result.histograms.put("tell", snapshot);
+        } finally {
+            BenchmarkSupport.terminate(system);
+        }
+    }
+
+    private static void tellAtRate(ActorRef ref, long intervalNanos, long durationNanos) {
+        long start = System.nanoTime();
+        long count = durationNanos / intervalNanos;
+        for (long i = 0; i < count; i++) {
+            // 按计划时刻发，落后了就连着发把进度追回来，不跳过
+            long intended = start + i * intervalNanos;
+            waitUntil(intended);
+            ref.tell(MessageType.Product, intended, null);
+        }
+    }
+
+    private static void measureAsk(Result result, long warmupNanos, long durationNanos) throws InterruptedException {
+        LatencyHistogram corrected = new LatencyHistogram();
+        LatencyHistogram uncorrected = new LatencyHistogram();
+        ActorSystem system = new ActorSystem(BenchmarkSupport.dispatcher(result.dispatcher));
+        try {
+            ActorRef ref = system.register("latency", new BenchmarkSupport.CountingActor());
+            long interval = result.intervalNanos();
+            askAtRate(ref, interval, warmupNanos, corrected, uncorrected);
+            corrected.reset();
+            uncorrected.reset();
+
+            long start = System.nanoTime();
+            result.askTimeouts = askAtRate(ref, interval, durationNanos, corrected, uncorrected);
+            long elapsed = System.nanoTime() - start;
+            LatencyHistogram.Snapshot raw = uncorrected.snapshot();
+            result.askRate = raw.getTotalCount() * 1e9 / elapsed;
+            result.histograms.put("ask", corrected.snapshot());
+            result.histograms.put("askUncorrected", raw);
+        } finally {
+            BenchmarkSupport.terminate(system);
+        }
+    }
+
+    /**
+     * @return 超时的请求数
+     */
+    private static long askAtRate(ActorRef ref, long intervalNanos, long durationNanos,
+                                  LatencyHistogram corrected, LatencyHistogram uncorrected) throws InterruptedException {
+        long deadline = System.nanoTime() + durationNanos;
+        long next = System.nanoTime();
+        long timeouts = 0;
+        while (next < deadline) {
+            waitUntil(next);
+            long sentAt = System.nanoTime();
+            try {
+                ref.ask(MessageType.Query, 0, null).get(ASK_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                timeouts++;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("ask failed", e.getCause());
+            }
+            long now = System.nanoTime();
+            uncorrected.record(now - sentAt);
+            corrected.recordWithExpectedInterval(now - sentAt, intervalNanos);
+            // 回复晚了就马上发下一个，不补发耽误掉的那几个：它们已经由修正后的直方图补记了
+            next = Math.max(next + intervalNanos, now);
+        }
+        return timeouts;
+    }
+
+    private static void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > PARK_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(remaining - PARK_THRESHOLD_NANOS);
+            } else {
+                Thread.yield();  // 单核机器上也要让 actor 有机会跑
+            }
+        }
+    }
+
+    private static long max(String[] rates) {
+        long max = 0;
+        for (String rate : rates) {
+            max = Math.max(max, Long.parseLong(rate));
+        }
+        return max;
+    }
+
+    private static void write(File out, List<Result> results) throws IOException {
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IOException("cannot create " + out);
+        }
+        LatencyReport.writeCsv(new File(out, "latency.csv"), results);
+        LatencyReport.writeJson(new File(out, "latency.json"), results);
+        LatencyReport.writeHistograms(out, results);
+        System.out.println("results written to " + out.getAbsolutePath());
+    }
+
+    // key=value 形式的参数
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    /**
+     * 收到消息时记下距计划发送时刻过了多久
+     */
+    static final class TimestampActor extends Actor {
+        private final LatencyHistogram latency;
+
+        TimestampActor(LatencyHistogram latency) {
+            this.latency = latency;
+        }
+
+        @Override
+        public void receive(Message message) {
+            latency.record(System.nanoTime() - message.value);
+        }
+    }
+
+    /**
+     * 一个 dispatcher 在一个目标速率下的测量结果，直方图单位是纳秒
+     */
+    static final class Result {
+        final String dispatcher;
+        final long targetRate;
+        double tellRate;
+        double askRate;
+        boolean drained;
+        long askTimeouts;
+        // tell / ask / askUncorrected，按这个顺序导出
+        final Map<String, LatencyHistogram.Snapshot> histograms = new LinkedHashMap<>();
+
+        Result(String dispatcher, long targetRate) {
+            this.dispatcher = dispatcher;
+            this.targetRate = targetRate;
+        }
+
+        long intervalNanos() {
+            return TimeUnit.SECONDS.toNanos(1) / targetRate;
+        }
+
+        boolean tellSaturated() {
+            return !drained || tellRate < targetRate * SATURATION_THRESHOLD;
+        }
+
+        boolean askSaturated() {
+            return askTimeouts > 0 || askRate < targetRate * SATURATION_THRESHOLD;
+        }
+    }
+}
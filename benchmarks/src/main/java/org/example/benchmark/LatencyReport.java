@@ -0,0 +1,183 @@
+package org.example.benchmark;
+
+import org.example.actor.LatencyHistogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/***
+ *  LatencyHarness 的输出：控制台汇总、CSV、JSON、HdrHistogram 格式的 .hgrm
+ *  直方图按纳秒记录，导出时统一换成微秒；数字一律按 Locale.ROOT 格式化，小数点不会随系统语言变成逗号
+ */
+final class LatencyReport {
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99", "p999", "p9999"};
+
+    private LatencyReport() {
+    }
+
+    static void printHeader(PrintStream out) {
+        out.printf(Locale.ROOT, "%-13s %9s | %10s %9s %9s %9s | %10s %9s %9s %9s %12s%n",
+                "dispatcher", "target/s",
+                "tell/s", "p50(us)", "p99", "p99.9",
+                "ask/s", "p50(us)", "p99", "p99.9", "p99(uncorr)");
+    }
+
+    static void printRow(PrintStream out, LatencyHarness.Result result) {
+        LatencyHistogram.Snapshot tell = result.histograms.get("tell");
+        LatencyHistogram.Snapshot ask = result.histograms.get("ask");
+        LatencyHistogram.Snapshot raw = result.histograms.get("askUncorrected");
+        out.printf(Locale.ROOT, "%-13s %9d | %10.0f %9.1f %9.1f %9.1f | %10.0f %9.1f %9.1f %9.1f %12.1f%s%n",
+                result.dispatcher, result.targetRate,
+                result.tellRate, micros(tell, 50), micros(tell, 99), micros(tell, 99.9),
+                result.askRate, micros(ask, 50), micros(ask, 99), micros(ask, 99.9), micros(raw, 99),
+                marks(result));
+    }
+
+    /**
+     * 每个 dispatcher 还没饱和的最高速率；第一档就饱和了记为 0
+     */
+    static void printKnees(PrintStream out, List<LatencyHarness.Result> results) {
+        out.println();
+        String dispatcher = null;
+        long tellKnee = 0;
+        long askKnee = 0;
+        boolean tellDone = false;
+        boolean askDone = false;
+        for (LatencyHarness.Result result : results) {
+            if (!result.dispatcher.equals(dispatcher)) {
+                if (dispatcher != null) {
+                    printKnee(out, dispatcher, tellKnee, askKnee);
+                }
+                dispatcher = result.dispatcher;
+                tellKnee = askKnee = 0;
+                tellDone = askDone = false;
+            }
+            // 速率按参数给的顺序逐级加压，第一次饱和之后的档位不再算
+            tellDone |= result.tellSaturated();
+            askDone |= result.askSaturated();
+            if (!tellDone) {
+                tellKnee = result.targetRate;
+            }
+            if (!askDone) {
+                askKnee = result.targetRate;
+            }
+        }
+        if (dispatcher != null) {
+            printKnee(out, dispatcher, tellKnee, askKnee);
+        }
+    }
+
+    private static void printKnee(PrintStream out, String dispatcher, long tellKnee, long askKnee) {
+        out.printf(Locale.ROOT, "%-13s highest unsaturated rate: tell %d/s, ask %d/s%n", dispatcher, tellKnee, askKnee);
+    }
+
+    // S = 完成速率低于目标（饱和），T = 有 ask 超时
+    private static String marks(LatencyHarness.Result result) {
+        String marks = "";
+        if (result.tellSaturated()) {
+            marks += "  tell:S";
+        }
+        if (result.askSaturated()) {
+            marks += "  ask:S";
+        }
+        if (result.askTimeouts > 0) {
+            marks += "  ask:T=" + result.askTimeouts;
+        }
+        return marks;
+    }
+
+    /**
+     * 每组测量的每种延迟一行
+     */
+    static void writeCsv(File file, List<LatencyHarness.Result> results) throws IOException {
+        try (PrintStream out = open(file)) {
+            out.print("dispatcher,target_rate,achieved_rate,saturated,metric,count,min_us,mean_us,stddev_us");
+            for (String name : PERCENTILE_NAMES) {
+                out.print("," + name + "_us");
+            }
+            out.println(",max_us");
+            for (LatencyHarness.Result result : results) {
+                for (Map.Entry<String, LatencyHistogram.Snapshot> entry : result.histograms.entrySet()) {
+                    boolean tell = entry.getKey().equals("tell");
+                    LatencyHistogram.Snapshot s = entry.getValue();
+                    out.printf(Locale.ROOT, "%s,%d,%.1f,%b,%s,%d,%.3f,%.3f,%.3f",
+                            result.dispatcher, result.targetRate,
+                            tell ? result.tellRate : result.askRate,
+                            tell ? result.tellSaturated() : result.askSaturated(),
+                            entry.getKey(), s.getTotalCount(),
+                            s.getMin() / NANOS_PER_MICRO, s.getMean() / NANOS_PER_MICRO, s.getStdDeviation() / NANOS_PER_MICRO);
+                    for (double percentile : PERCENTILES) {
+                        out.printf(Locale.ROOT, ",%.3f", micros(s, percentile));
+                    }
+                    out.printf(Locale.ROOT, ",%.3f%n", s.getMax() / NANOS_PER_MICRO);
+                }
+            }
+            finish(out, file);
+        }
+    }
+
+    static void writeJson(File file, List<LatencyHarness.Result> results) throws IOException {
+        try (PrintStream out = open(file)) {
+            out.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                LatencyHarness.Result result = results.get(i);
+                out.printf(Locale.ROOT, "  {\"dispatcher\": \"%s\", \"targetRate\": %d, \"tellRate\": %.1f, \"tellSaturated\": %b, "
+                                + "\"askRate\": %.1f, \"askSaturated\": %b, \"askTimeouts\": %d, \"latencyUs\": {%n",
+                        result.dispatcher, result.targetRate, result.tellRate, result.tellSaturated(),
+                        result.askRate, result.askSaturated(), result.askTimeouts);
+                int remaining = result.histograms.size();
+                for (Map.Entry<String, LatencyHistogram.Snapshot> entry : result.histograms.entrySet()) {
+                    LatencyHistogram.Snapshot s = entry.getValue();
+                    out.printf(Locale.ROOT, "    \"%s\": {\"count\": %d, \"min\": %.3f, \"mean\": %.3f, \"stddev\": %.3f",
+                            entry.getKey(), s.getTotalCount(),
+                            s.getMin() / NANOS_PER_MICRO, s.getMean() / NANOS_PER_MICRO, s.getStdDeviation() / NANOS_PER_MICRO);
+                    for (int p = 0; p < PERCENTILES.length; p++) {
+                        out.printf(Locale.ROOT, ", \"%s\": %.3f", PERCENTILE_NAMES[p], micros(s, PERCENTILES[p]));
+                    }
+                    out.printf(Locale.ROOT, ", \"max\": %.3f}%s%n", s.getMax() / NANOS_PER_MICRO, --remaining > 0 ? "," : "");
+                }
+                out.println(i < results.size() - 1 ? "  }}," : "  }}");
+            }
+            out.println("]");
+            finish(out, file);
+        }
+    }
+
+    /**
+     * 每组测量的每种延迟一个文件：{dispatcher}-{rate}-{metric}.hgrm，单位微秒
+     */
+    static void writeHistograms(File dir, List<LatencyHarness.Result> results) throws IOException {
+        for (LatencyHarness.Result result : results) {
+            for (Map.Entry<String, LatencyHistogram.Snapshot> entry : result.histograms.entrySet()) {
+                File file = new File(dir, result.dispatcher + "-" + result.targetRate + "-" + entry.getKey() + ".hgrm");
+                try (PrintStream out = open(file)) {
+                    entry.getValue().outputPercentileDistribution(out, NANOS_PER_MICRO);
+                    finish(out, file);
+                }
+            }
+        }
+    }
+
+    private static double micros(LatencyHistogram.Snapshot snapshot, double percentile) {
+        return snapshot.getValueAtPercentile(percentile) / NANOS_PER_MICRO;
+    }
+
+    private static PrintStream open(File file) throws IOException {
+        return new PrintStream(new FileOutputStream(file), false, "UTF-8");
+    }
+
+    // PrintStream 把 IOException 吞掉只留一个错误标志，磁盘满或目录不可写时不检查就会留下截断的文件、还报告写成功了
+    private static void finish(PrintStream out, File file) throws IOException {
+        if (out.checkError()) {
+            throw new IOException("failed to write " + file);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.benchmark;
+
+import org.example.actor.MessageType;
+import org.example.actor.test3.ActorRef;
+import org.example.actor.test3.ActorSystem;
+import org.example.actor.test3.BoundedMailbox;
+import org.example.actor.test3.OverflowStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个发送线程同时写一个 actor 的信箱
+ * 只用 BLOCK 策略的有界信箱：发送方被 actor 的处理速度背压住，测的是稳定状态下的吞吐和入队争用；
+ * 无界信箱在这种负载下只会越积越多，数字没有意义，单发送方的对比见 TellThroughputBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MailboxContentionBenchmark {
+
+    @Param({"default", "ringBuffer", "workStealing"})
+    public String dispatcher;
+
+    @Param({"1024", "16384"})
+    public int capacity;
+
+    private ActorSystem system;
+    private ActorRef ref;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = new ActorSystem(BenchmarkSupport.dispatcher(dispatcher));
+        ref = system.register("counter", new BenchmarkSupport.CountingActor(),
+                () -> new BoundedMailbox(capacity, OverflowStrategy.BLOCK));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.terminate(system);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void tell_4_producers() {
+        ref.tell(MessageType.Product, 1, null);
+    }
+}
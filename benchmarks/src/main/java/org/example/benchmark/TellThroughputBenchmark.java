@@ -0,0 +1,51 @@
+package org.example.benchmark;
+
+import org.example.actor.MessageType;
+import org.example.actor.test3.ActorRef;
+import org.example.actor.test3.ActorSystem;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个发送方对单个 actor 的 tell 吞吐，按 dispatcher × 信箱组合
+ * 每次调用发 BATCH 条再 awaitIdle，测的是“发出并处理完”的速度，而不是只往信箱里塞的速度；
+ * 发送方跑得比 actor 快时，无界信箱也不会越积越多
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TellThroughputBenchmark {
+
+    @Param({"default", "ringBuffer", "workStealing"})
+    public String dispatcher;
+
+    @Param({"mpsc", "array", "bounded"})
+    public String mailbox;
+
+    private ActorSystem system;
+    private ActorRef ref;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        system = new ActorSystem(BenchmarkSupport.dispatcher(dispatcher));
+        ref = system.register("counter", new BenchmarkSupport.CountingActor(), BenchmarkSupport.mailbox(mailbox));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.terminate(system);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BenchmarkSupport.BATCH)
+    public void tell() throws InterruptedException {
+        for (int i = 0; i < BenchmarkSupport.BATCH; i++) {
+            ref.tell(MessageType.Product, i, null);
+        }
+        BenchmarkSupport.awaitIdle(system);
+    }
+}
@@ -0,0 +1,100 @@
+package org.example.actor;
+
+import org.example.log.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ *  死信：没有人会处理的消息（收件人不存在、已停止、不认识这条消息、信箱溢出）都交到这里
+ *  每种原因一个 LongAdder 计数，发送方之间不争用同一个缓存行
+ *  日志按时间窗口采样：每个窗口最多打印 maxLogsPerInterval 条，其余只计数，下个窗口开头报一次被省略了多少条
+ *  窗口打满之后只剩一次 volatile 读；打印的那几条也只是放进异步日志的环里，发送线程不会被输出流拖慢
+ */
+public class DeadLetterOffice {
+
+    public enum Reason {
+        UNKNOWN_RECIPIENT,
+        STOPPED,
+        UNHANDLED,
+        OVERFLOW
+    }
+
+    public static final int DEFAULT_MAX_LOGS_PER_INTERVAL = 10;
+    public static final long DEFAULT_LOG_INTERVAL_MILLIS = 1_000L;
+
+    private final Logger log;
+    private final LongAdder[] counts = new LongAdder[Reason.values().length];
+    private final int maxLogsPerInterval;
+    private final long intervalNanos;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger loggedInWindow = new AtomicInteger();
+    private final LongAdder suppressedInWindow = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+
+    public DeadLetterOffice(String name) {
+        this(name, DEFAULT_MAX_LOGS_PER_INTERVAL, DEFAULT_LOG_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param maxLogsPerInterval 每个窗口最多打印的条数，0 表示只计数不打印
+     */
+    public DeadLetterOffice(String name, int maxLogsPerInterval, long interval, TimeUnit unit) {
+        this.log = Logger.getLogger(name + " dead letters");
+        this.maxLogsPerInterval = maxLogsPerInterval;
+        this.intervalNanos = unit.toNanos(interval);
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param recipient 收件人名字，可以为 null
+     * @param message   只有被采样打印时才会调用它的 toString
+     */
+    public void publish(Reason reason, String recipient, Object message) {
+        counts[reason.ordinal()].increment();
+        if (maxLogsPerInterval <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        long skipped = 0;
+        // 抢到换窗口的线程负责清零，并报告上个窗口省略的条数
+        if (now - start >= intervalNanos && windowStart.compareAndSet(start, now)) {
+            skipped = suppressedInWindow.sumThenReset();
+            loggedInWindow.set(0);
+        }
+        if (loggedInWindow.get() >= maxLogsPerInterval || loggedInWindow.incrementAndGet() > maxLogsPerInterval) {
+            suppressedInWindow.increment();
+            suppressed.increment();
+            return;
+        }
+        if (skipped > 0) {
+            log.warn("{} more dead letters suppressed in the last interval", skipped);
+        }
+        // 当场转成字符串：池化的信封在写线程格式化之前可能已经被回收复用了
+        log.warn("{} to {}: {}", reason, recipient, String.valueOf(message));
+    }
+
+    public long getCount(Reason reason) {
+        return counts[reason.ordinal()].sum();
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (LongAdder count : counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * 因为限流没有打印出来的条数
+     */
+    public long getSuppressed() {
+        return suppressed.sum();
+    }
+}
@@ -0,0 +1,211 @@
+package org.example.actor;
+
+import org.example.log.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/***
+ *  哈希时间轮：一个后台线程按固定 tick 转动，所有超时任务挂在对应的槽上，
+ *  新增、取消都是 O(1)，不会像 ScheduledExecutorService 那样每个任务都进一次堆、都要加锁
+ *  新任务先压进一个无锁栈，由时间轮线程在每个 tick 搬进槽里；取消只是改个状态，等时间轮扫到时再摘掉
+ *  超时任务在时间轮线程上执行，必须足够轻（比如结束一个 future）
+ *  精度是一个 tick，适合 ask 超时这类“大量、大多会被取消、晚一点触发无所谓”的场景
+ */
+public class HashedWheelTimer {
+    private static final Logger LOG = Logger.getLogger(HashedWheelTimer.class);
+
+    public static final long DEFAULT_TICK_MILLIS = 10;
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /**
+     * newTimeout 的返回值，用来取消
+     */
+    public interface Timeout {
+        /**
+         * @return 任务还没执行且这次取消成功时返回 true
+         */
+        boolean cancel();
+
+        boolean isCancelled();
+
+        boolean isExpired();
+    }
+
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private static final class Entry implements Timeout {
+        final Runnable task;
+        final long deadline;  // 相对 startTime 的纳秒数
+        final AtomicInteger state = new AtomicInteger(ST_INIT);
+        long remainingRounds;
+        Entry next;          // 槽内链表，只有时间轮线程访问
+        Entry nextPending;   // 待搬运栈
+
+        Entry(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            return state.compareAndSet(ST_INIT, ST_CANCELLED);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+    }
+
+    private final long tickNanos;
+    private final Entry[] wheel;
+    private final int mask;
+    private final AtomicReference<Entry> pending = new AtomicReference<>();
+    private final Thread worker;
+    private final AtomicInteger workerState = new AtomicInteger();  // 0 未启动 1 运行中 2 已停止
+    private volatile long startTime;
+    private long tick;
+
+    public HashedWheelTimer(String threadName) {
+        this(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_TICKS_PER_WHEEL, threadName);
+    }
+
+    /**
+     * @param ticksPerWheel 槽数，会向上取整到 2 的幂
+     */
+    public HashedWheelTimer(long tickDuration, TimeUnit unit, int ticksPerWheel, String threadName) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+        }
+        if (ticksPerWheel <= 0 || ticksPerWheel > (1 << 30)) {
+            throw new IllegalArgumentException("ticksPerWheel out of range: " + ticksPerWheel);
+        }
+        int size = Integer.highestOneBit(ticksPerWheel);
+        if (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.wheel = new Entry[size];
+        this.mask = size - 1;
+        this.worker = new Thread(this::workLoop, threadName);
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * 在 delay 之后于时间轮线程上执行 task；第一次调用时才启动后台线程
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        start();
+        Entry entry = new Entry(task, System.nanoTime() - startTime + unit.toNanos(Math.max(0, delay)));
+        Entry head;
+        do {
+            head = pending.get();
+            entry.nextPending = head;
+        } while (!pending.compareAndSet(head, entry));
+        return entry;
+    }
+
+    private void start() {
+        // 状态先于 startTime 变成运行中，只看状态的话，并发的调用方会拿 startTime == 0 算出一个永远到不了的 deadline
+        if (startTime != 0 && workerState.get() == 1) {
+            return;
+        }
+        if (workerState.compareAndSet(0, 1)) {
+            startTime = System.nanoTime();
+            worker.start();
+        } else if (workerState.get() == 2) {
+            throw new IllegalStateException("timer stopped");
+        }
+        while (startTime == 0) {
+            Thread.yield();  // 启动线程还没写入 startTime
+        }
+    }
+
+    /**
+     * 停止后台线程，还没到期的任务不再执行
+     */
+    public void stop() {
+        if (workerState.getAndSet(2) == 1) {
+            worker.interrupt();
+        }
+    }
+
+    private void workLoop() {
+        while (workerState.get() == 1) {
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startTime);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;  // 醒早了就再睡
+            }
+            transferPending();
+            expireBucket((int) (tick & mask));
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Entry entry = pending.getAndSet(null);
+        while (entry != null) {
+            Entry nextPending = entry.nextPending;
+            entry.nextPending = null;
+            if (entry.state.get() == ST_INIT) {
+                long ticks = entry.deadline / tickNanos;
+                long target = Math.max(ticks, tick);  // 已经过期的放到当前槽，本轮就触发
+                entry.remainingRounds = (target - tick) / wheel.length;
+                int index = (int) (target & mask);
+                entry.next = wheel[index];
+                wheel[index] = entry;
+            }
+            entry = nextPending;
+        }
+    }
+
+    private void expireBucket(int index) {
+        Entry prev = null;
+        Entry entry = wheel[index];
+        while (entry != null) {
+            Entry next = entry.next;
+            boolean remove;
+            if (entry.state.get() != ST_INIT) {
+                remove = true;  // 已取消，顺手摘掉
+            } else if (entry.remainingRounds <= 0) {
+                remove = true;
+                if (entry.state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+                    try {
+                        entry.task.run();
+                    } catch (Throwable e) {
+                        LOG.error("Timer task failed", e);
+                    }
+                }
+            } else {
+                entry.remainingRounds--;
+                remove = false;
+            }
+            if (remove) {
+                entry.next = null;
+                if (prev == null) {
+                    wheel[index] = next;
+                } else {
+                    prev.next = next;
+                }
+            } else {
+                prev = entry;
+            }
+            entry = next;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.actor;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ *  HDR 风格的延迟直方图：每个 2 的幂区间再线性分成 64 个子桶，任何量级上的相对误差都不超过 1/64
+ *  桶数组在构造时一次分配好，record 只是算下标再做一次原子自增，不加锁、不分配对象，可以多线程同时写
+ *  单位由调用方决定（这个项目里都是纳秒）；超过 highestTrackableValue 的值记在最后一个桶里
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT >> 1;
+
+    // 默认能区分到约 1100 秒（纳秒单位）
+    public static final long DEFAULT_HIGHEST_TRACKABLE_VALUE = 1L << 40;
+
+    private final long highestTrackableValue;
+    private final AtomicLongArray counts;
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(0);
+
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_TRACKABLE_VALUE);
+    }
+
+    public LatencyHistogram(long highestTrackableValue) {
+        if (highestTrackableValue < SUB_BUCKET_COUNT) {
+            throw new IllegalArgumentException("highestTrackableValue too small: " + highestTrackableValue);
+        }
+        this.highestTrackableValue = highestTrackableValue;
+        this.counts = new AtomicLongArray(indexOf(highestTrackableValue) + 1);
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int index = indexOf(Math.min(value, highestTrackableValue));
+        counts.incrementAndGet(index);
+        totalCount.increment();
+        sum.add(value);
+        // min / max 只有刷新纪录时才 CAS，绝大多数 record 只是一次读
+        long m;
+        while (value < (m = min.get()) && !min.compareAndSet(m, value)) {
+            // 重试
+        }
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+            // 重试
+        }
+    }
+
+    /**
+     * 带协调遗漏（coordinated omission）修正的记录：调用方本该每隔 expectedInterval 发一次请求，
+     * 但这一次耗时 value、期间该发而没发的请求没有被测到，就按 value - interval、value - 2*interval ... 补记进来，
+     * 和这些请求真发出去时会看到的等待时间一致
+     *
+     * @param expectedInterval 期望的发送间隔，和 value 同单位；不大于 0 时等同于 record
+     */
+    public void recordWithExpectedInterval(long value, long expectedInterval) {
+        record(value);
+        if (expectedInterval <= 0) {
+            return;
+        }
+        for (long missing = value - expectedInterval; missing >= expectedInterval; missing -= expectedInterval) {
+            record(missing);
+        }
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        sum.reset();
+        min.set(Long.MAX_VALUE);
+        max.set(0);
+    }
+
+    /**
+     * 复制一份当前的计数；和并发的 record 之间不是原子的，总数和各桶之间可能差几条
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        long mn = min.get();
+        return new Snapshot(copy, total, sum.sum(), mn == Long.MAX_VALUE ? 0 : mn, max.get());
+    }
+
+    // 小于 SUB_BUCKET_COUNT 的值一一对应；更大的值按最高位所在的 2 的幂分组，组内取最高 SUB_BUCKET_BITS 位
+    static int indexOf(long value) {
+        int shift = Math.max(0, (63 - Long.numberOfLeadingZeros(value | 1)) - (SUB_BUCKET_BITS - 1));
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    // 桶的下界
+    static long lowestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_HALF - 1;
+        return (long) (index - shift * SUB_BUCKET_HALF) << shift;
+    }
+
+    static long bucketWidthAt(int index) {
+        return index < SUB_BUCKET_COUNT ? 1 : 1L << (index / SUB_BUCKET_HALF - 1);
+    }
+
+    /**
+     * 某一时刻的只读副本，计算分位数不影响正在写的直方图
+     */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long totalCount;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        Snapshot(long[] counts, long totalCount, long sum, long min, long max) {
+            this.counts = counts;
+            this.totalCount = totalCount;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return totalCount == 0 ? 0 : (double) sum / totalCount;
+        }
+
+        /**
+         * @param percentile 0 到 100
+         * @return 该分位所在桶的中点，误差在一个桶宽以内；不超过记录到的最大值
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(lowestValueAt(i) + bucketWidthAt(i) / 2, max);
+                }
+            }
+            return max;
+        }
+
+        /**
+         * 用各桶中点估算的标准差
+         */
+        public double getStdDeviation() {
+            if (totalCount == 0) {
+                return 0;
+            }
+            double mean = getMean();
+            double squares = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    double deviation = lowestValueAt(i) + bucketWidthAt(i) / 2 - mean;
+                    squares += deviation * deviation * counts[i];
+                }
+            }
+            return Math.sqrt(squares / totalCount);
+        }
+
+        /**
+         * 按 HdrHistogram 的 .hgrm 格式输出百分位分布（Value / Percentile / TotalCount / 1/(1-Percentile)），
+         * 每个非空桶一行，可以直接丢进 HdrHistogram 的绘图页面
+         *
+         * @param unitRatio 输出时值要除以的倍数，比如纳秒记录、按微秒输出就传 1000
+         */
+        public void outputPercentileDistribution(PrintStream out, double unitRatio) {
+            out.printf("%12s %14s %10s %14s%n%n", "Value", "Percentile", "TotalCount", "1/(1-Percentile)");
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    continue;
+                }
+                seen += counts[i];
+                double fraction = (double) seen / totalCount;
+                long value = Math.min(lowestValueAt(i) + bucketWidthAt(i) - 1, max);
+                if (fraction < 1.0) {
+                    out.printf("%12.3f %2.12f %10d %14.2f%n", value / unitRatio, fraction, seen, 1 / (1 - fraction));
+                } else {
+                    out.printf("%12.3f %2.12f %10d%n", value / unitRatio, fraction, seen);
+                }
+            }
+            out.printf("#[Mean    = %12.3f, StdDeviation   = %12.3f]%n", getMean() / unitRatio, getStdDeviation() / unitRatio);
+            out.printf("#[Max     = %12.3f, Total count    = %12d]%n", max / unitRatio, totalCount);
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + totalCount
+                    + ", min=" + min
+                    + ", p50=" + getValueAtPercentile(50)
+                    + ", p99=" + getValueAtPercentile(99)
+                    + ", p99.9=" + getValueAtPercentile(99.9)
+                    + ", max=" + max;
+        }
+    }
+}
@@ -5,8 +5,30 @@ package org.example.actor;
  * @since 2025/05/16 16:44
  */
 public enum MessageType {
-    Product(0, "Product"),
-    Consumer(1, "Consumer");
+    Product(MessageType.PRODUCT_ID, "Product"),
+    Consumer(MessageType.CONSUMER_ID, "Consumer"),
+    Query(MessageType.QUERY_ID, "Query"),
+    Crash(MessageType.CRASH_ID, "Crash");
+
+    // 操作码常量，可以直接写在 switch 的 case 上（编译成 tableswitch）
+    public static final int PRODUCT_ID = 0;
+    public static final int CONSUMER_ID = 1;
+    public static final int QUERY_ID = 2;
+    public static final int CRASH_ID = 3;
+
+    // 按操作码下标的查找表，操作码必须从 0 开始连续
+    private static final MessageType[] BY_ID;
+
+    static {
+        MessageType[] values = values();
+        BY_ID = new MessageType[values.length];
+        for (MessageType m : values) {
+            if (m.MessageId < 0 || m.MessageId >= values.length || BY_ID[m.MessageId] != null) {
+                throw new ExceptionInInitializerError("MessageType ids must be dense from 0: " + m);
+            }
+            BY_ID[m.MessageId] = m;
+        }
+    }
 
     private int MessageId;
     private String note;
@@ -31,11 +53,16 @@ public enum MessageType {
         this.note = note;
     }
 
+    /**
+     * 操作码的个数，可以直接用来开处理器数组
+     */
+    public static int size() {
+        return BY_ID.length;
+    }
+
     public static MessageType fromMessageId(int i){
-        for(MessageType m : MessageType.values()){
-            if(m.getMessageId() == i){
-                return m;
-            }
+        if (i >= 0 && i < BY_ID.length) {
+            return BY_ID[i];
         }
         throw new IllegalArgumentException("No such MessageType");
     }
@@ -0,0 +1,52 @@
+package org.example.actor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/***
+ *  带超时的 ask 结果：自己就是挂到时间轮上的超时任务，每次 ask 只比普通 CompletableFuture 多一个时间轮节点
+ *  正常完成时顺手取消时间轮上的节点；超时后再到的应答会被忽略
+ */
+public class TimeoutFuture<T> extends CompletableFuture<T> implements Runnable {
+
+    private final long timeoutNanos;
+    private volatile HashedWheelTimer.Timeout timeout;
+
+    private TimeoutFuture(long timeoutNanos) {
+        this.timeoutNanos = timeoutNanos;
+    }
+
+    public static <T> TimeoutFuture<T> schedule(HashedWheelTimer timer, long timeout, TimeUnit unit) {
+        TimeoutFuture<T> future = new TimeoutFuture<>(unit.toNanos(timeout));
+        future.timeout = timer.newTimeout(future, timeout, unit);
+        return future;
+    }
+
+    // 时间轮到期
+    @Override
+    public void run() {
+        super.completeExceptionally(new TimeoutException("no reply within " + timeoutNanos + " ns"));
+    }
+
+    @Override
+    public boolean complete(T value) {
+        boolean completed = super.complete(value);
+        cancelTimeout(completed);
+        return completed;
+    }
+
+    @Override
+    public boolean completeExceptionally(Throwable ex) {
+        boolean completed = super.completeExceptionally(ex);
+        cancelTimeout(completed);
+        return completed;
+    }
+
+    private void cancelTimeout(boolean completed) {
+        HashedWheelTimer.Timeout t = timeout;
+        if (completed && t != null) {
+            t.cancel();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.example.actor.test1;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.LockSupport;
 /**
  * @author DavyDavyTom Email:a@wk2.cn
  * @since 2025/05/16 16:05
@@ -13,6 +14,11 @@ public class Actor extends Thread{
     public ConcurrentLinkedQueue<Message> queue; // 存储消息，消息中包含要执行的动作信息，比如序号
     // 数组
     public Runnable[] behavior; // 存储可执行的动作
+    // 队列为空时怎么等，默认逐级退让到 park，空闲的 actor 不再占满一个核
+    private IdleStrategy idleStrategy = IdleStrategy.backoff();
+    // 线程已经（或马上要）park，发送方看到它就 unpark
+    private volatile boolean parked;
+    private volatile boolean running = true;
     public Actor(){
 
     }
@@ -20,26 +26,62 @@ public class Actor extends Thread{
         this.behavior = behavior;
         this.queue = queue;
     }
+
+    // 只能在 start 之前设置
+    public void setIdleStrategy(IdleStrategy idleStrategy) {
+        this.idleStrategy = idleStrategy;
+    }
+
     // 发消息
 
     public void send(Actor actor, Message message){
         message.setSender(this);
         message.setReceiver(actor);
         actor.queue.add(message);
+        actor.wakeUp();
     }
     // 用来测试
     public void send(Message message){
         this.queue.add(message);
+        wakeUp();
+    }
+
+    // 先入队再看 parked；parkIdle 是先置 parked 再查队列，两边至少有一方能看到对方，不会丢唤醒
+    private void wakeUp() {
+        if (parked) {
+            LockSupport.unpark(this);
+        }
+    }
+
+    // 由 IdleStrategy 在 actor 自己的线程上调用
+    void parkIdle(long nanos) {
+        parked = true;
+        if (queue.isEmpty() && running) {
+            LockSupport.parkNanos(this, nanos);
+        }
+        parked = false;
+    }
+
+    /**
+     * 让 run 处理完当前这条消息后退出，队列里剩下的消息不再处理
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(this);
     }
 
     // 处理消息
     @Override
     public void run(){
         // 业务逻辑
-        while(true){
-            if(!queue.isEmpty()){
-                Message message = queue.poll();
+        int idleCount = 0;
+        while(running && !isInterrupted()){
+            Message message = queue.poll();
+            if (message != null) {
+                idleCount = 0;
                 behavior[message.getType()].run();
+            } else {
+                idleCount = idleStrategy.idle(idleCount, this);
             }
         }
     }
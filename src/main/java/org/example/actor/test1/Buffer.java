@@ -1,6 +1,7 @@
 package org.example.actor.test1;
 
 import org.example.actor.MessageType;
+import org.example.log.Logger;
 
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -10,6 +11,7 @@ import java.util.concurrent.LinkedBlockingQueue;
  * @since 2025/05/16 16:20
  */
 public class Buffer extends Actor {
+    private static final Logger LOG = Logger.getLogger(Buffer.class);
 
     private int num;
     public Buffer() {
@@ -21,7 +23,7 @@ public class Buffer extends Actor {
             @Override
             public void run() {
                 num++;
-                System.out.println(Thread.currentThread().getName() + " num: " + num);
+                LOG.debug("{} num: {}", Thread.currentThread().getName(), num);
             }
         };
         behavior[MessageType.Consumer.getMessageId()] = new Runnable() {
@@ -29,9 +31,9 @@ public class Buffer extends Actor {
             public void run() {
                 if(num > 0){
                     num--;
-                    System.out.println(Thread.currentThread().getName() + " num: " + num);
+                    LOG.debug("{} num: {}", Thread.currentThread().getName(), num);
                 } else {
-                    System.out.println(Thread.currentThread().getName() + " no more items");
+                    LOG.debug("{} no more items", Thread.currentThread().getName());
                 }
 
             }
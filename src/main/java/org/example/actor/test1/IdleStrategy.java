@@ -0,0 +1,104 @@
+package org.example.actor.test1;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * 每个 actor 一个线程时，队列为空的 actor 线程怎么等
+ * busySpin  一直空转，唤醒最快，但每个空闲 actor 占满一个核
+ * backoff   空转 -> Thread.onSpinWait -> Thread.yield -> parkNanos 逐级退让，park 的时长从 minParkNanos 翻倍到 maxParkNanos；
+ *           发送方看到 actor 已经 park 会直接 unpark 它，所以唤醒延迟在微秒级，park 超时只是兜底
+ */
+public interface IdleStrategy {
+
+    /**
+     * 队列为空时调用
+     *
+     * @param idleCount 连续空转的次数，取到消息后调用方会重置为 0
+     * @return 下一次调用时传入的 idleCount
+     */
+    int idle(int idleCount, Actor actor);
+
+    static IdleStrategy busySpin() {
+        return (idleCount, actor) -> idleCount + 1;
+    }
+
+    static IdleStrategy backoff() {
+        return new Backoff(Backoff.DEFAULT_SPINS, Backoff.DEFAULT_SPIN_WAITS, Backoff.DEFAULT_YIELDS,
+                Backoff.DEFAULT_MIN_PARK_NANOS, Backoff.DEFAULT_MAX_PARK_NANOS);
+    }
+
+    static IdleStrategy backoff(int spins, int spinWaits, int yields, long minParkNanos, long maxParkNanos) {
+        return new Backoff(spins, spinWaits, yields, minParkNanos, maxParkNanos);
+    }
+
+    final class Backoff implements IdleStrategy {
+        static final int DEFAULT_SPINS = 10;
+        static final int DEFAULT_SPIN_WAITS = 100;
+        static final int DEFAULT_YIELDS = 10;
+        static final long DEFAULT_MIN_PARK_NANOS = 1_000L;
+        static final long DEFAULT_MAX_PARK_NANOS = 1_000_000L;
+
+        // 项目按 Java 8 编译，Thread.onSpinWait（9+）只能运行时查；static final 的句柄 JIT 能内联成 pause 指令
+        private static final MethodHandle ON_SPIN_WAIT = findOnSpinWait();
+
+        private final int spinLimit;
+        private final int spinWaitLimit;
+        private final int yieldLimit;
+        private final long minParkNanos;
+        private final long maxParkNanos;
+
+        Backoff(int spins, int spinWaits, int yields, long minParkNanos, long maxParkNanos) {
+            if (spins < 0 || spinWaits < 0 || yields < 0 || minParkNanos <= 0 || maxParkNanos < minParkNanos) {
+                throw new IllegalArgumentException("invalid backoff: spins=" + spins + ", spinWaits=" + spinWaits
+                        + ", yields=" + yields + ", park=" + minParkNanos + ".." + maxParkNanos);
+            }
+            this.spinLimit = spins;
+            this.spinWaitLimit = spins + spinWaits;
+            this.yieldLimit = spins + spinWaits + yields;
+            this.minParkNanos = minParkNanos;
+            this.maxParkNanos = maxParkNanos;
+        }
+
+        @Override
+        public int idle(int idleCount, Actor actor) {
+            if (idleCount < spinLimit) {
+                return idleCount + 1;
+            }
+            if (idleCount < spinWaitLimit) {
+                onSpinWait();
+                return idleCount + 1;
+            }
+            if (idleCount < yieldLimit) {
+                Thread.yield();
+                return idleCount + 1;
+            }
+            // 每多 park 一次时长翻倍，封顶 maxParkNanos；移位前先看会不会溢出
+            int parks = idleCount - yieldLimit;
+            long nanos = parks < Long.numberOfLeadingZeros(minParkNanos) - 1
+                    ? Math.min(maxParkNanos, minParkNanos << parks)
+                    : maxParkNanos;
+            actor.parkIdle(nanos);
+            return idleCount == Integer.MAX_VALUE ? idleCount : idleCount + 1;
+        }
+
+        private static void onSpinWait() {
+            if (ON_SPIN_WAIT != null) {
+                try {
+                    ON_SPIN_WAIT.invokeExact();
+                } catch (Throwable ignored) {
+                    // 不会发生
+                }
+            }
+        }
+
+        private static MethodHandle findOnSpinWait() {
+            try {
+                return MethodHandles.lookup().findStatic(Thread.class, "onSpinWait", MethodType.methodType(void.class));
+            } catch (ReflectiveOperationException e) {
+                return null;  // Java 8 没有，退化成空转
+            }
+        }
+    }
+}
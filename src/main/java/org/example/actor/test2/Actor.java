@@ -1,5 +1,8 @@
 package org.example.actor.test2;
 
+import org.example.actor.DeadLetterOffice;
+import org.example.log.Logger;
+
 import java.util.Map;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
@@ -11,6 +14,10 @@ import java.util.function.Consumer;
  * 数组变成了 map， 可以动态增加 behavior
  */
 public class Actor extends Thread {
+    private static final Logger LOG = Logger.getLogger(Actor.class);
+
+    // 所有 actor 共用的死信，没有 handler 的消息记在这里，打印按时间窗口限流
+    public static final DeadLetterOffice DEAD_LETTERS = new DeadLetterOffice("test2");
 
     public LinkedBlockingQueue<Message<?>> queue;
     public Map<Integer, Consumer<Message<?>>> behavior;
@@ -37,11 +44,10 @@ public class Actor extends Thread {
                 if (handler != null) {
                     handler.accept(message);
                 } else {
-                    System.err.println(getName() + " 无 handler 处理类型: " + message.getType());
+                    DEAD_LETTERS.publish(DeadLetterOffice.Reason.UNHANDLED, getName(), message);
                 }
             } catch (Exception e) {
-                System.err.println(getName() + " 处理消息时异常: " + e.getMessage());
-                e.printStackTrace();
+                LOG.error(getName() + " 处理消息时异常", e);
             }
         }
     }
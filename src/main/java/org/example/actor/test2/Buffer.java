@@ -3,6 +3,7 @@ package org.example.actor.test2;
 
 
 import org.example.actor.MessageType;
+import org.example.log.Logger;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -10,6 +11,8 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
 
 public class Buffer extends Actor {
+    private static final Logger LOG = Logger.getLogger(Buffer.class);
+
     private int num;
 
     public Buffer() {
@@ -20,17 +23,17 @@ public class Buffer extends Actor {
         Map<Integer, Consumer<Message<?>>> handlers = new HashMap<>();
 
         handlers.put(MessageType.Product.getMessageId(), msg -> {
-            num += (Integer) msg.getPayload();  // 可以携带生产数量
-            System.out.println(getName() + " num: " + num);
+            num += (int) msg.getValue();  // 可以携带生产数量
+            LOG.debug("{} num: {}", getName(), num);
         });
 
         handlers.put(MessageType.Consumer.getMessageId(), msg -> {
-            int count = (Integer) msg.getPayload();
+            int count = (int) msg.getValue();
             if (num >= count) {
                 num -= count;
-                System.out.println(getName() + " consumed " + count + ", now num: " + num);
+                LOG.debug("{} consumed {}, now num: {}", getName(), count, num);
             } else {
-                System.out.println(getName() + " no enough items. now num: " + num);
+                LOG.debug("{} no enough items. now num: {}", getName(), num);
             }
         });
 
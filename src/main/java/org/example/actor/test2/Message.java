@@ -3,6 +3,7 @@ package org.example.actor.test2;
 public class Message<T> {
     int type;
     T payload;
+    long value;  // 数值参数直接放这里，不用装箱成 payload
     Actor sender;
     Actor receiver;
 
@@ -12,9 +13,15 @@ public class Message<T> {
     public T getPayload() { return payload; }
     public void setPayload(T payload) { this.payload = payload; }
 
+    public long getValue() { return value; }
+    public void setValue(long value) { this.value = value; }
+
     public Actor getSender() { return sender; }
     public void setSender(Actor sender) { this.sender = sender; }
 
     public Actor getReceiver() { return receiver; }
     public void setReceiver(Actor receiver) { this.receiver = receiver; }
+
+    @Override
+    public String toString() { return "type=" + type + ", value=" + value + ", payload=" + payload; }
 }
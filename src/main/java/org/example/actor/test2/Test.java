@@ -21,17 +21,17 @@ public class Test {
 
         for (int i = 0; i < 50; i++) {
             // 生产
-            Message<Integer> m = new Message<>();
+            Message<Void> m = new Message<>();
             m.setType(MessageType.Product.getMessageId());
-            m.setPayload(3); // 生产3个
+            m.setValue(3); // 生产3个
             producer.send(buffer, m);
         }
 
         for (int i = 0; i < 100; i++) {
             // 消费
-            Message<Integer> c = new Message<>();
+            Message<Void> c = new Message<>();
             c.setType(MessageType.Consumer.getMessageId());
-            c.setPayload(2); // 消费2个
+            c.setValue(2); // 消费2个
             consumer.send(buffer, c);
         }
     }
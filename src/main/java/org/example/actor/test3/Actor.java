@@ -1,6 +1,14 @@
 package org.example.actor.test3;
 
-import java.util.concurrent.LinkedBlockingQueue;
+import org.example.actor.DeadLetterOffice;
+import org.example.actor.MessageType;
+import org.example.log.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /***
  *  主要是增加了 Actor 的的统一管理 和 ask-reply 机制
@@ -8,7 +16,35 @@ import java.util.concurrent.LinkedBlockingQueue;
  *  并且解耦了 runnable 和 Thread， Thread交给了 线程池管理
  */
 public abstract class Actor implements Runnable {
-    private final LinkedBlockingQueue<Message> mailbox = new LinkedBlockingQueue<>();
+    private static final Logger LOG = Logger.getLogger(Actor.class);
+
+    // 调度状态：只有 IDLE -> SCHEDULED 这一次迁移才会把 actor 交给 dispatcher
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int RUNNING = 2;
+
+    // 单次调度最多处理的消息数，处理完就让出线程，避免热点 actor 长期霸占线程池
+    public static final int DEFAULT_THROUGHPUT = 100;
+
+    private Mailbox mailbox = new MpscLinkedMailbox();
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private volatile int throughput = DEFAULT_THROUGHPUT;
+    private volatile boolean messagePooling;
+    private volatile boolean batchReceive;
+    // stopped 置位后不再处理新消息；terminated 表示停止流程（拒收剩余消息、postStop、注销）已经走完
+    private volatile boolean stopped;
+    private volatile boolean terminated;
+    // 批量模式下复用的批次容器，只有正在执行这个 actor 的线程会碰它
+    private final ArrayList<Message> batch = new ArrayList<>();
+    // 上一次执行这个 actor 的工作线程编号，由 WorkStealingDispatcher 维护；跨线程读到旧值也无妨
+    private int affinity = -1;
+    // 行为栈：栈底是构造时用 on 登记的初始行为，become 压栈、unbecome 出栈，只有 actor 自己的线程会改
+    private Behavior[] behaviors = {new Behavior()};
+    private int depth = 0;
+    // 当前行为，等于 behaviors[depth]，单独存一份让分发少一次数组访问
+    private Behavior behavior = behaviors[0];
+    // 第一次开启指标时才创建，没开过指标的 actor 不占直方图的内存
+    private volatile ActorMetrics metrics;
     private ActorSystem system;
     private String name;
 
@@ -20,26 +56,410 @@ public abstract class Actor implements Runnable {
         this.name = name;
     }
 
-    public void enqueue(Message msg) {
-        mailbox.offer(msg);
-        system.getDispatcher().dispatch(this);  // 提醒 dispatcher 执行我
+    // 只能在注册时、还没有任何消息投递进来之前替换
+    protected void setMailbox(Mailbox mailbox) {
+        this.mailbox = mailbox;
+    }
+
+    protected Mailbox getMailbox() {
+        return mailbox;
+    }
+
+    public void setThroughput(int throughput) {
+        if (throughput <= 0) {
+            throw new IllegalArgumentException("throughput must be positive: " + throughput);
+        }
+        this.throughput = throughput;
+    }
+
+    public int getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * 开启后 tell 会从 ActorSystem 的信封池里取 Message，receive 返回后立刻回收复用
+     * 只有 receive 不会在返回后继续持有 Message（比如存起来、转发原对象）的 actor 才能开启
+     * 配合 ArrayMailbox / BoundedMailbox 使用时，tell 路径上不再分配任何对象
+     */
+    public void setMessagePooling(boolean messagePooling) {
+        this.messagePooling = messagePooling;
+    }
+
+    public boolean isMessagePooling() {
+        return messagePooling;
+    }
+
+    /**
+     * 开启后 run 会把本次调度要处理的消息（最多 throughput 条）一次性交给 receiveBatch
+     */
+    protected void setBatchReceive(boolean batchReceive) {
+        this.batchReceive = batchReceive;
+    }
+
+    public boolean isBatchReceive() {
+        return batchReceive;
+    }
+
+    protected ActorSystem getSystem() {
+        return system;
+    }
+
+    int getAffinity() {
+        return affinity;
+    }
+
+    void setAffinity(int affinity) {
+        this.affinity = affinity;
+    }
+
+    synchronized void enableMetrics() {
+        if (metrics == null) {
+            metrics = new ActorMetrics();
+        }
+    }
+
+    /**
+     * @return 从没开启过指标时为 null
+     */
+    ActorMetrics getMetrics() {
+        return metrics;
+    }
+
+    // 指标关闭时只多一次 volatile 读
+    private ActorMetrics recording() {
+        return system.isMetricsEnabled() ? metrics : null;
+    }
+
+    /**
+     * @return 有界信箱已满、消息没有放进去时返回 false
+     */
+    public boolean enqueue(Message msg) {
+        if (stopped) {
+            reject(msg);
+            msg.recycle();  // 和 rejectAll 一样：死信已经当场转成字符串，池化的信封可以还回去
+            return false;
+        }
+        ActorMetrics m = recording();
+        if (m != null) {
+            msg.enqueuedAt = System.nanoTime();  // 必须在 offer 之前写，放进去之后消息就归 actor 线程了
+        }
+        if (!mailbox.offer(msg)) {
+            return false;
+        }
+        if (m != null) {
+            m.received.increment();
+        }
+        schedule();
+        return true;
+    }
+
+    /**
+     * 一批消息只做一次发布（取决于信箱实现）和一次调度判断
+     *
+     * @return 实际放进信箱的条数
+     */
+    public int enqueueAll(Collection<Message> msgs) {
+        if (stopped) {
+            for (Message msg : msgs) {
+                reject(msg);
+                msg.recycle();
+            }
+            return 0;
+        }
+        ActorMetrics m = recording();
+        if (m != null) {
+            long now = System.nanoTime();
+            for (Message msg : msgs) {
+                msg.enqueuedAt = now;
+            }
+        }
+        int accepted = mailbox.offerAll(msgs);
+        if (m != null) {
+            m.received.add(accepted);
+        }
+        if (accepted > 0) {
+            schedule();
+        }
+        return accepted;
+    }
+
+    // 已经在排队或正在执行时不再重复提交，保证同一时刻只有一个线程在处理这个 actor
+    private void schedule() {
+        if (state.compareAndSet(IDLE, SCHEDULED)) {
+            try {
+                system.getDispatcher().dispatch(this);  // 提醒 dispatcher 执行我
+            } catch (RuntimeException e) {
+                state.set(IDLE);
+                throw e;
+            }
+        }
     }
 
     public String getName() {
         return name;
     }
 
+    /**
+     * 处理完当前这条消息就停止，信箱里剩下的消息记为 STOPPED 死信；要先处理完已有的消息用 PoisonPill
+     * 由 ActorSystem.stop / terminate 调用，停止流程在 actor 自己的线程上执行，不会和 receive 并发
+     */
+    void stop() {
+        stopped = true;
+        schedule();
+    }
+
+    // 信箱为空且没有排队、没有在执行；两个条件不是同一时刻读的，由 ActorSystem.awaitIdle 配合活动计数复核
+    boolean isIdle() {
+        return mailbox.isEmpty() && state.get() == IDLE;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * 停止流程是否已经走完（postStop 已调用、已从 ActorSystem 注销）
+     */
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * 停止后调用一次，在 actor 自己的线程上执行，可以在这里释放资源
+     */
+    protected void postStop() {
+    }
+
+    // terminated 最后才置位，ActorSystem.terminate 看到它时剩余消息已经全部拒收、postStop 已经返回
+    private void finishStop() {
+        rejectAll();
+        system.unregister(this);
+        try {
+            postStop();
+        } catch (Exception e) {
+            LOG.error("Actor [" + name + "] postStop failed", e);
+        } finally {
+            terminated = true;
+        }
+    }
+
+    private void rejectAll() {
+        Message msg;
+        while ((msg = mailbox.poll()) != null) {
+            reject(msg);
+            msg.recycle();
+        }
+    }
+
+    // 停止之后的消息没有人处理了，记为死信，等应答的调用方直接收到失败
+    private void reject(Message msg) {
+        if (msg.payload == PoisonPill.INSTANCE) {
+            return;  // 本来就是要它停，不算死信
+        }
+        system.getDeadLetters().publish(DeadLetterOffice.Reason.STOPPED, name, msg);
+        if (msg.expectsReply()) {
+            msg.replyFailure(new IllegalStateException("Actor [" + name + "] is stopped"));
+        }
+    }
+
+    /**
+     * 在初始行为上登记某个操作码的处理器，应在构造时完成
+     */
+    protected void on(MessageType type, MessageHandler handler) {
+        behaviors[0].on(type, handler);
+    }
+
+    /**
+     * 把新行为压到栈顶，从下一条消息开始生效；只能在处理消息时（actor 自己的线程上）调用
+     */
+    protected void become(Behavior next) {
+        become(next, false);
+    }
+
+    /**
+     * @param discardOld 为 true 时替换栈顶而不是压栈（栈底的初始行为不会被替换），适合状态机在几个模式之间来回切换的场景
+     */
+    protected void become(Behavior next, boolean discardOld) {
+        if (next == null) {
+            throw new IllegalArgumentException("behavior must not be null");
+        }
+        if (discardOld && depth > 0) {
+            behaviors[depth] = next;
+        } else {
+            if (++depth == behaviors.length) {
+                behaviors = Arrays.copyOf(behaviors, depth * 2);
+            }
+            behaviors[depth] = next;
+        }
+        behavior = next;
+    }
+
+    /**
+     * 弹出栈顶行为，回到上一个；已经是初始行为时什么也不做
+     */
+    protected void unbecome() {
+        if (depth > 0) {
+            behaviors[depth--] = null;
+            behavior = behaviors[depth];
+        }
+    }
+
     public abstract void receive(Message message);
 
+    /**
+     * receive 里遇到不认识的消息时调用：记一笔 UNHANDLED 死信，等应答的调用方直接收到失败
+     */
+    protected void unhandled(Message message) {
+        // 先给提问方回失败，死信记录出什么问题都不能让它干等
+        if (message.expectsReply()) {
+            message.replyFailure(new IllegalArgumentException("Actor [" + name + "] cannot handle " + message));
+        }
+        system.getDeadLetters().publish(DeadLetterOffice.Reason.UNHANDLED, name, message);
+    }
+
+    // 当前行为里按操作码下标查表，查不到再落到 receive；不做字符串比较
+    private void handle(Message message) {
+        MessageHandler handler = behavior.handlerFor(message.type);
+        if (handler != null) {
+            handler.handle(message);
+        } else {
+            receive(message);
+        }
+    }
+
+    /**
+     * 批量处理钩子，只有 setBatchReceive(true) 后才会被调用
+     * 默认逐条分发（先查处理器表，再落到 receive）；像 BufferActor 这样的 actor 可以覆盖它，把一批 add/remove 折叠成一次状态更新
+     * 覆盖后抛出的异常会让这一批中剩下的消息被跳过
+     * batch 在返回后会被清空复用，不要持有它
+     */
+    protected void receiveBatch(List<Message> batch) {
+        for (Message message : batch) {
+            try {
+                handle(message);
+            } catch (Exception e) {
+                LOG.error("Actor [" + name + "] failed to handle " + message, e);
+            }
+        }
+    }
+
     @Override
     public void run() {
+        if (!state.compareAndSet(SCHEDULED, RUNNING)) {
+            return;
+        }
+        try {
+            if (!stopped) {
+                if (batchReceive) {
+                    drainBatch();
+                } else {
+                    drain();
+                }
+            }
+            if (stopped) {
+                if (!terminated) {
+                    finishStop();
+                } else {
+                    rejectAll();  // 停止前后并发投进来的消息
+                }
+            }
+        } finally {
+            system.activationCompleted();  // 必须在回到 IDLE 之前，awaitIdle 靠它发现扫描期间跑过的 actor
+            state.set(IDLE);
+            // 配额用完时剩下的消息，以及最后一次 poll 之后到达的消息，都靠这里重新排到线程池队尾
+            // 正在执行时收到的 stop 调度不上，也靠这里补一次
+            if (!mailbox.isEmpty() || (stopped && !terminated)) {
+                schedule();
+            }
+        }
+    }
+
+    private void drain() {
+        int limit = throughput;
         Message msg;
-        while ((msg = mailbox.poll()) != null) {
+        while (!stopped && limit-- > 0 && (msg = mailbox.poll()) != null) {
+            if (msg.payload == PoisonPill.INSTANCE) {
+                msg.recycle();
+                stopped = true;
+                break;
+            }
+            ActorMetrics m = recording();
+            if (m != null) {
+                drainRecorded(msg, m);
+                continue;
+            }
             try {
-                receive(msg);
+                handle(msg);
             } catch (Exception e) {
-                e.printStackTrace();
+                LOG.error("Actor [" + name + "] failed to handle " + msg, e);
+            } finally {
+                msg.recycle();
+            }
+        }
+    }
+
+    // 和 drain 的循环体一样，多记等待时间、处理耗时和成功失败；分开写让关掉指标时的路径保持原样
+    private void drainRecorded(Message msg, ActorMetrics m) {
+        long start = System.nanoTime();
+        if (msg.enqueuedAt != 0) {
+            m.queueWait.record(start - msg.enqueuedAt);
+        }
+        try {
+            handle(msg);
+            m.processed.increment();
+        } catch (Exception e) {
+            m.failed.increment();
+            LOG.error("Actor [" + name + "] failed to handle " + msg, e);
+        } finally {
+            m.receiveTime.record(System.nanoTime() - start);
+            msg.recycle();
+        }
+    }
+
+    private void drainBatch() {
+        int limit = throughput;
+        Message msg;
+        while (limit-- > 0 && (msg = mailbox.poll()) != null) {
+            if (msg.payload == PoisonPill.INSTANCE) {
+                msg.recycle();
+                stopped = true;  // 毒丸之前的这一批照常处理
+                break;
+            }
+            batch.add(msg);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        // 批量模式下 receiveTime 记的是整批的耗时；覆盖的 receiveBatch 抛异常时整批都记为失败
+        ActorMetrics m = recording();
+        long start = 0;
+        if (m != null) {
+            start = System.nanoTime();
+            for (int i = 0; i < batch.size(); i++) {
+                long enqueuedAt = batch.get(i).enqueuedAt;
+                if (enqueuedAt != 0) {
+                    m.queueWait.record(start - enqueuedAt);
+                }
+            }
+        }
+        try {
+            receiveBatch(batch);
+            if (m != null) {
+                m.processed.add(batch.size());
+            }
+        } catch (Exception e) {
+            if (m != null) {
+                m.failed.add(batch.size());
+            }
+            LOG.error("Actor [" + name + "] failed to handle a batch of " + batch.size(), e);
+        } finally {
+            if (m != null) {
+                m.receiveTime.record(System.nanoTime() - start);
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).recycle();
             }
+            batch.clear();
         }
     }
 }
@@ -0,0 +1,90 @@
+package org.example.actor.test3;
+
+import org.example.actor.LatencyHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ *  单个 actor 的运行指标，只有 ActorSystem 开启指标时才会记录
+ *  received 在发送方线程上累加，用分段的 LongAdder，多个发送方不争同一个缓存行
+ *  processed / failed 和两个直方图只在 actor 自己的线程上写
+ *  queueWait    消息从进信箱到被取出的时间（纳秒）
+ *  receiveTime  receive 的执行时间（纳秒）；批量模式下记录的是整批的耗时
+ */
+public final class ActorMetrics {
+    final LongAdder received = new LongAdder();
+    final LongAdder processed = new LongAdder();
+    final LongAdder failed = new LongAdder();
+    final LatencyHistogram queueWait = new LatencyHistogram();
+    final LatencyHistogram receiveTime = new LatencyHistogram();
+
+    public void reset() {
+        received.reset();
+        processed.reset();
+        failed.reset();
+        queueWait.reset();
+        receiveTime.reset();
+    }
+
+    Snapshot snapshot(String name, int mailboxSize) {
+        return new Snapshot(name, received.sum(), processed.sum(), failed.sum(), mailboxSize,
+                queueWait.snapshot(), receiveTime.snapshot());
+    }
+
+    public static final class Snapshot {
+        private final String name;
+        private final long received;
+        private final long processed;
+        private final long failed;
+        private final int mailboxSize;
+        private final LatencyHistogram.Snapshot queueWait;
+        private final LatencyHistogram.Snapshot receiveTime;
+
+        Snapshot(String name, long received, long processed, long failed, int mailboxSize,
+                 LatencyHistogram.Snapshot queueWait, LatencyHistogram.Snapshot receiveTime) {
+            this.name = name;
+            this.received = received;
+            this.processed = processed;
+            this.failed = failed;
+            this.mailboxSize = mailboxSize;
+            this.queueWait = queueWait;
+            this.receiveTime = receiveTime;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getReceived() {
+            return received;
+        }
+
+        public long getProcessed() {
+            return processed;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public int getMailboxSize() {
+            return mailboxSize;
+        }
+
+        public LatencyHistogram.Snapshot getQueueWait() {
+            return queueWait;
+        }
+
+        public LatencyHistogram.Snapshot getReceiveTime() {
+            return receiveTime;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": received=" + received + ", processed=" + processed + ", failed=" + failed
+                    + ", mailbox=" + mailboxSize
+                    + "\n  queueWait(ns)   " + queueWait
+                    + "\n  receiveTime(ns) " + receiveTime;
+        }
+    }
+}
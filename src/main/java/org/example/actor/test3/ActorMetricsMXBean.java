@@ -0,0 +1,33 @@
+package org.example.actor.test3;
+
+/***
+ *  单个 actor 的 JMX 视图，时间单位都是纳秒
+ *  对象名形如 org.example.actor:type=Actor,system=...,name=...
+ */
+public interface ActorMetricsMXBean {
+    long getReceived();
+
+    long getProcessed();
+
+    long getFailed();
+
+    int getMailboxSize();
+
+    double getQueueWaitMean();
+
+    long getQueueWaitP50();
+
+    long getQueueWaitP99();
+
+    long getQueueWaitMax();
+
+    double getReceiveTimeMean();
+
+    long getReceiveTimeP50();
+
+    long getReceiveTimeP99();
+
+    long getReceiveTimeMax();
+
+    void reset();
+}
@@ -1,6 +1,15 @@
 package org.example.actor.test3;
 
+import org.example.actor.MessageType;
+import org.example.actor.TimeoutFuture;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /***
  *  封装了 actor，便于 ActorSystem 管理
@@ -13,17 +22,144 @@ public class ActorRef {
         this.actor = actor;
     }
 
+    // 没放进信箱的信封可能已经被死信等地方引用了，不回收，交给 GC
     public void tell(Object msg, ActorRef sender) {
-        actor.enqueue(Message.oneWay(msg, sender));
+        deliver(envelope(msg, sender));
+    }
+
+    /**
+     * 类型化 tell：操作码查表分发，数值参数放在 Message.value 里，不装箱
+     */
+    public void tell(MessageType type, long value, ActorRef sender) {
+        deliver(envelope(type.getMessageId(), value, sender));
+    }
+
+    private Message envelope(Object msg, ActorRef sender) {
+        return isMessagePooling()
+                ? system().getMessagePool().acquire(msg, sender)
+                : Message.oneWay(msg, sender);
+    }
+
+    private Message envelope(int type, long value, ActorRef sender) {
+        return isMessagePooling()
+                ? system().getMessagePool().acquire(type, value, sender)
+                : Message.typed(type, value, sender);
+    }
+
+    /**
+     * 批量 tell：整批消息一次放进信箱，只做一次调度判断
+     *
+     * @return 实际放进信箱的条数
+     */
+    public int tellAll(Collection<?> msgs, ActorRef sender) {
+        List<Message> batch = new ArrayList<>(msgs.size());
+        if (isMessagePooling()) {
+            MessagePool pool = system().getMessagePool();
+            for (Object msg : msgs) {
+                batch.add(pool.acquire(msg, sender));
+            }
+        } else {
+            for (Object msg : msgs) {
+                batch.add(Message.oneWay(msg, sender));
+            }
+        }
+        return deliverAll(batch);
     }
 
     public CompletableFuture<Object> ask(Object msg, ActorRef sender) {
         CompletableFuture<Object> future = new CompletableFuture<>();
-        actor.enqueue(Message.ask(msg, sender, future));
+        deliver(Message.ask(msg, sender, future));
         return future;
     }
 
+    public CompletableFuture<Object> ask(MessageType type, long value, ActorRef sender) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        Message message = Message.typed(type, value, sender);
+        message.future = future;
+        deliver(message);
+        return future;
+    }
+
+    /**
+     * 带超时的 ask：超时后 future 以 TimeoutException 结束，超时由 ActorSystem 的时间轮统一管理
+     */
+    public CompletableFuture<Object> ask(Object msg, ActorRef sender, long timeout, TimeUnit unit) {
+        TimeoutFuture<Object> future = TimeoutFuture.schedule(system().getTimer(), timeout, unit);
+        deliver(Message.ask(msg, sender, future));
+        return future;
+    }
+
+    /**
+     * 同步请求/应答的快速通道：应答写进 ActorSystem 预分配的应答槽位，调用线程自旋后 park 等待
+     * 不分配 CompletableFuture；目标 actor 开启了信封复用时连 Message 也不分配
+     * 需要组合异步回调时仍然用 ask
+     *
+     * @throws TimeoutException   超时没有应答，之后迟到的应答会被丢弃
+     * @throws ExecutionException 对方用 replyFailure 回复，或消息被有界信箱丢弃
+     */
+    public Object request(Object msg, ActorRef sender, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return request(envelope(msg, sender), timeout, unit);
+    }
+
+    public Object request(MessageType type, long value, ActorRef sender, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        return request(envelope(type.getMessageId(), value, sender), timeout, unit);
+    }
+
+    private Object request(Message message, long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        ReplySlots replies = system().getReplySlots();
+        long correlationId = replies.acquire();
+        if (correlationId < 0) {
+            // 槽位都被占用，退回 CompletableFuture
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            message.future = future;
+            deliver(message);
+            return future.get(timeout, unit);
+        }
+        message.replySlots = replies;
+        message.correlationId = correlationId;
+        try {
+            deliver(message);
+        } catch (RuntimeException e) {
+            replies.abandon(correlationId);  // 比如 FAIL 策略的有界信箱抛出的溢出异常
+            throw e;
+        }
+        return replies.await(correlationId, unit.toNanos(timeout));
+    }
+
+    // 以下几个方法是所有发送路径的出口，RouterRef 覆盖它们把消息转给 routee
+
+    boolean deliver(Message message) {
+        return actor.enqueue(message);
+    }
+
+    int deliverAll(List<Message> batch) {
+        return actor.enqueueAll(batch);
+    }
+
+    boolean isMessagePooling() {
+        return actor.isMessagePooling();
+    }
+
+    ActorSystem system() {
+        return actor.getSystem();
+    }
+
+    // 路由 ref 背后没有单个 actor，返回 null
+    Actor actor() {
+        return actor;
+    }
+
     public String getName() {
         return actor.getName();
     }
+
+    /**
+     * 当前信箱中的消息数，在 actor 线程之外读取只是一个近似值
+     */
+    public int mailboxSize() {
+        return actor.getMailbox().size();
+    }
 }
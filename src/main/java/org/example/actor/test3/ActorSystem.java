@@ -1,33 +1,422 @@
 package org.example.actor.test3;
 
+import org.example.actor.DeadLetterOffice;
+import org.example.actor.HashedWheelTimer;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /***
  * 统一管理actor，其实只需要管理 有共享变量的 actor， 比如bufferActor
  * 线程管理用 线程池
  */
 public class ActorSystem {
+    public static final long DEFAULT_TERMINATE_TIMEOUT_MILLIS = 5_000L;
+
     private final Map<String, ActorRef> actors = new ConcurrentHashMap<>();
     private final Dispatcher dispatcher;
+    // 所有带超时的 ask 共用一个时间轮，第一次用到时才启动线程
+    private final HashedWheelTimer timer = new HashedWheelTimer("actor-system-timer");
+    // 信封池和应答槽位都是预分配的大数组，只有用到信封复用 / request 的系统才需要，第一次用到时才创建
+    private final int messagePoolCapacity;
+    private final Object lazyLock = new Object();  // 不用 this：terminate 持有 this 等待期间，发送方仍要能拿到它们
+    private volatile MessagePool messagePool;
+    private volatile ReplySlots replySlots;
+    private final DeadLetterOffice deadLetters = new DeadLetterOffice("actor-system");
+    private volatile boolean metricsEnabled;
+    // registerMBeans 之后注册的 actor 也会自动注册 MBean
+    private volatile MetricsMBeans mbeans;
+    private volatile boolean terminated;
+    // actor 每执行完一次调度加一，只用来判断两次读之间有没有 actor 跑过
+    private final LongAdder activations = new LongAdder();
 
     public ActorSystem(Dispatcher dispatcher) {
+        this(dispatcher, MessagePool.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param messagePoolCapacity 信封池容量，开启信封复用的 actor 的信箱容量最好不要超过它
+     */
+    public ActorSystem(Dispatcher dispatcher, int messagePoolCapacity) {
         this.dispatcher = dispatcher;
+        // 池子推迟到第一次用时才建，容量不合法要在这里就报出来
+        if (messagePoolCapacity <= 0 || messagePoolCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("messagePoolCapacity out of range: " + messagePoolCapacity);
+        }
+        this.messagePoolCapacity = messagePoolCapacity;
     }
 
     public Dispatcher getDispatcher() {
         return dispatcher;
     }
 
+    public HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    public MessagePool getMessagePool() {
+        MessagePool pool = messagePool;
+        if (pool == null) {
+            synchronized (lazyLock) {
+                pool = messagePool;
+                if (pool == null) {
+                    pool = new MessagePool(messagePoolCapacity);
+                    messagePool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    ReplySlots getReplySlots() {
+        ReplySlots slots = replySlots;
+        if (slots == null) {
+            synchronized (lazyLock) {
+                slots = replySlots;
+                if (slots == null) {
+                    slots = new ReplySlots(ReplySlots.DEFAULT_CAPACITY);
+                    replySlots = slots;
+                }
+            }
+        }
+        return slots;
+    }
+
+    public DeadLetterOffice getDeadLetters() {
+        return deadLetters;
+    }
+
+    /**
+     * 开关指标记录，关闭后已有的计数保留，可以继续读
+     * 打开时给所有已注册的 actor 分配计数器和直方图（每个 actor 约 36KB）
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        metricsEnabled = enabled;
+        if (enabled) {
+            for (ActorRef ref : actors.values()) {
+                Actor actor = ref.actor();
+                if (actor != null) {
+                    actor.enableMetrics();
+                }
+            }
+        }
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    /**
+     * 当前的指标快照；actor 之间、计数和直方图之间都不是同一时刻的，只适合观察趋势
+     * 路由 ref 本身不出现，它的 routee 以 name-i 的名字各占一项
+     */
+    public MetricsSnapshot snapshotMetrics() {
+        List<ActorMetrics.Snapshot> snapshots = new ArrayList<>();
+        for (ActorRef ref : actors.values()) {
+            Actor actor = ref.actor();
+            ActorMetrics metrics = actor == null ? null : actor.getMetrics();
+            if (metrics != null) {
+                snapshots.add(metrics.snapshot(actor.getName(), actor.getMailbox().size()));
+            }
+        }
+        snapshots.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return new MetricsSnapshot(dispatcher.getClass().getSimpleName(),
+                dispatcher.getPoolSize(), dispatcher.getActiveThreads(), snapshots);
+    }
+
+    /**
+     * 把 dispatcher 和所有 actor 的指标注册成 MXBean，之后注册的 actor 也会跟着注册
+     * 只负责暴露，记录仍然要 setMetricsEnabled(true)
+     *
+     * @param systemName 对象名里的 system 属性，同一个 JVM 里有多个 ActorSystem 时用来区分
+     * @throws IllegalStateException 已经注册过，或者对象名冲突
+     */
+    public synchronized void registerMBeans(String systemName) {
+        if (mbeans != null) {
+            throw new IllegalStateException("MBeans already registered");
+        }
+        MetricsMBeans beans = new MetricsMBeans(systemName);
+        beans.registerDispatcher(dispatcher);
+        mbeans = beans;
+        for (ActorRef ref : actors.values()) {
+            Actor actor = ref.actor();
+            if (actor != null) {
+                beans.registerActor(actor);
+            }
+        }
+    }
+
+    /**
+     * 给 DEAD_LETTER 策略的 BoundedMailbox 用，例如
+     * {@code () -> new BoundedMailbox(1024, OverflowStrategy.DEAD_LETTER, system.deadLetterSink("buffer"))}
+     */
+    public Consumer<Message> deadLetterSink(String recipient) {
+        return msg -> deadLetters.publish(DeadLetterOffice.Reason.OVERFLOW, recipient, msg);
+    }
+
     public ActorRef register(String name, Actor actor) {
+        return register(name, actor, MpscLinkedMailbox::new);
+    }
+
+    /**
+     * 注册时为 actor 指定信箱实现，例如 {@code () -> new ArrayMailbox(1024)}
+     */
+    public ActorRef register(String name, Actor actor, Supplier<? extends Mailbox> mailboxFactory) {
+        if (terminated) {
+            throw new IllegalStateException("ActorSystem terminated");
+        }
         actor.setSystem(this);
         actor.setName(name);
+        Mailbox mailbox = mailboxFactory.get();
+        if (mailbox instanceof BoundedMailbox) {
+            ((BoundedMailbox) mailbox).bindDeadLetters(deadLetterSink(name));
+        }
+        actor.setMailbox(mailbox);
         ActorRef ref = new ActorRef(actor);
         actors.put(name, ref);
+        // 先放进表再看开关，和 setMetricsEnabled 的先开关再遍历配对，两边至少有一方会给它分配指标
+        if (metricsEnabled) {
+            actor.enableMetrics();
+        }
+        MetricsMBeans beans = mbeans;
+        if (beans != null) {
+            beans.registerActor(actor);
+        }
         return ref;
     }
 
+    /**
+     * 创建一组 routee（名字为 name-0 ... name-(n-1)，同样注册在系统里），返回分发到它们的路由 ref
+     * 每个 routee 状态独立：无状态的 actor 可以随便用，有状态的配合 consistentHashing 按 key 分片
+     */
+    public RouterRef registerRouter(String name, RoutingLogic logic, int routees, Supplier<? extends Actor> actorFactory) {
+        return registerRouter(name, logic, routees, actorFactory, MpscLinkedMailbox::new);
+    }
+
+    public RouterRef registerRouter(String name, RoutingLogic logic, int routees,
+                                    Supplier<? extends Actor> actorFactory, Supplier<? extends Mailbox> mailboxFactory) {
+        if (routees <= 0) {
+            throw new IllegalArgumentException("routees must be positive: " + routees);
+        }
+        Actor[] actors = new Actor[routees];
+        ActorRef[] refs = registerRoutees(name, actors, i -> actorFactory.get(), mailboxFactory);
+        RouterRef router = new RouterRef(name, this, logic, actors, refs);
+        this.actors.put(name, router);
+        return router;
+    }
+
+    /**
+     * 分片实体：写消息按发送线程分到 shards 个分片上，需要应答的读消息发给所有分片，应答用 aggregator 合并
+     *
+     * @param actorFactory 参数是分片编号，初始状态要拆到各分片上时用得到，比如 {@code i -> new BufferActor(i == 0 ? 1 : 0)}
+     * @param query        哪些消息是读，比如 {@code m -> m.type == MessageType.QUERY_ID}；其余需要应答的消息按写处理，只发给一个分片
+     */
+    public ShardedRef registerSharded(String name, int shards, IntFunction<? extends Actor> actorFactory,
+                                      Predicate<Message> query, BinaryOperator<Object> aggregator) {
+        return registerSharded(name, shards, RoutingLogic.senderThread(), actorFactory, query, aggregator);
+    }
+
+    /**
+     * 同上，写消息按 key 分片，同一个 key 总是落到同一个分片
+     */
+    public ShardedRef registerSharded(String name, int shards, ToLongFunction<Message> key,
+                                      IntFunction<? extends Actor> actorFactory, Predicate<Message> query,
+                                      BinaryOperator<Object> aggregator) {
+        return registerSharded(name, shards, RoutingLogic.consistentHashing(key), actorFactory, query, aggregator);
+    }
+
+    private ShardedRef registerSharded(String name, int shards, RoutingLogic logic,
+                                       IntFunction<? extends Actor> actorFactory, Predicate<Message> query,
+                                       BinaryOperator<Object> aggregator) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("shards must be positive: " + shards);
+        }
+        Actor[] actors = new Actor[shards];
+        ActorRef[] refs = registerRoutees(name, actors, actorFactory, MpscLinkedMailbox::new);
+        ShardedRef sharded = new ShardedRef(name, this, logic, actors, refs, query, aggregator);
+        this.actors.put(name, sharded);
+        return sharded;
+    }
+
+    private ActorRef[] registerRoutees(String name, Actor[] actors, IntFunction<? extends Actor> actorFactory,
+                                       Supplier<? extends Mailbox> mailboxFactory) {
+        ActorRef[] refs = new ActorRef[actors.length];
+        for (int i = 0; i < actors.length; i++) {
+            actors[i] = actorFactory.apply(i);
+            refs[i] = register(name + "-" + i, actors[i], mailboxFactory);
+        }
+        return refs;
+    }
+
+    /**
+     * 停止 actor：处理完当前消息就停，信箱里剩下的消息记为死信；停完后从系统里注销，按名字再也找不到它
+     * 路由 ref 会停掉所有 routee
+     * 想先处理完已经在信箱里的消息，发 PoisonPill
+     */
+    public void stop(ActorRef ref) {
+        if (ref instanceof RouterRef) {
+            for (Actor routee : ((RouterRef) ref).routees()) {
+                routee.stop();
+            }
+            actors.remove(ref.getName(), ref);
+            return;
+        }
+        Actor actor = ref.actor();
+        if (actor != null) {
+            actor.stop();
+        }
+    }
+
+    // actor 停完后在自己的线程上调用；同名的位置已经被新 actor 占了就不动
+    void unregister(Actor actor) {
+        boolean removed = false;
+        ActorRef ref = actors.get(actor.getName());
+        if (ref != null && ref.actor() == actor) {
+            removed = actors.remove(actor.getName(), ref);
+        }
+        MetricsMBeans beans = mbeans;
+        if (removed && beans != null) {
+            beans.unregisterActor(actor);
+        }
+    }
+
+    public boolean terminate() {
+        return terminate(DEFAULT_TERMINATE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 关闭整个系统：
+     *  1. 不再接受注册，给每个 actor 发 PoisonPill，信箱里已有的消息照常处理
+     *  2. 等所有 actor 停完，最多等 timeout；超时还没停的强制停止，剩下的消息记为死信
+     *  3. 关掉时间轮、注销 MBean、释放 dispatcher 的线程
+     * 处理期间 actor 之间互发、晚于对方毒丸到达的消息会变成死信
+     * dispatcher 视为这个系统独占，不要把同一个 dispatcher 实例交给多个 ActorSystem
+     *
+     * @return 所有 actor 是否在 timeout 之内处理完信箱正常停止
+     */
+    public synchronized boolean terminate(long timeout, TimeUnit unit) {
+        if (terminated) {
+            return true;
+        }
+        terminated = true;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<Actor> live = new ArrayList<>();
+        for (ActorRef ref : actors.values()) {
+            Actor actor = ref.actor();
+            if (actor != null) {
+                live.add(actor);
+            }
+        }
+        for (Actor actor : live) {
+            try {
+                if (!actor.enqueue(Message.oneWay(PoisonPill.INSTANCE, null))) {
+                    actor.stop();  // 有界信箱满了放不进去
+                }
+            } catch (RuntimeException e) {
+                actor.stop();      // FAIL 策略的信箱溢出
+            }
+        }
+        boolean drained = awaitTerminated(live, deadline);
+        if (!drained) {
+            for (Actor actor : live) {
+                actor.stop();
+            }
+            // 强制停止只需要等正在执行的那一条消息，再给一点时间
+            awaitTerminated(live, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        actors.clear();
+        timer.stop();
+        MetricsMBeans beans = mbeans;
+        if (beans != null) {
+            beans.unregisterAll();
+        }
+        dispatcher.shutdown();
+        return drained;
+    }
+
+    public boolean isTerminated() {
+        return terminated;
+    }
+
+    // 只在关闭时用，轮询就够了，不给每个 actor 配一个 latch
+    private static boolean awaitTerminated(List<Actor> actors, long deadline) {
+        for (Actor actor : actors) {
+            while (!actor.isTerminated()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(1)));
+            }
+        }
+        return true;
+    }
+
+    void activationCompleted() {
+        activations.increment();
+    }
+
+    /**
+     * 等到所有 actor 都把信箱处理完、没有 actor 在执行为止，用来代替“发完消息 sleep 一会儿”
+     * 判定方法：先读活动计数，扫一遍所有 actor 都空闲，再读一次活动计数没变
+     * 扫描期间跑过的 actor 一定会让计数变化；actor 发给别的 actor 的消息在它这次调度结束（计数加一）之前就已经进了信箱
+     * 前提是调用时外部线程已经不再发消息，否则只能说明曾经有一刻是空的
+     *
+     * @return 超时前达到空闲返回 true
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int tries = 0;
+        for (;;) {
+            long before = activations.sum();
+            if (allIdle() && activations.sum() == before) {
+                return true;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            // 刚发完消息时多半很快就空，先让几次再小睡
+            if (++tries < 100) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, 50_000L);
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private boolean allIdle() {
+        for (ActorRef ref : actors.values()) {
+            Actor actor = ref.actor();
+            if (actor != null && !actor.isIdle()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public ActorRef get(String name) {
         return actors.get(name);
     }
+
+    /**
+     * 和 get 一样按名字查找，找不到时返回一个投递到死信的 ref 而不是 null；发过去的 ask / request 立刻以失败结束
+     */
+    public ActorRef select(String name) {
+        ActorRef ref = actors.get(name);
+        return ref != null ? ref : new DeadLetterRef(name, this);
+    }
 }
@@ -0,0 +1,170 @@
+package org.example.actor.test3;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+/***
+ *  有界信箱：预先分配的环形数组，每个槽位带一个序号（Vyukov bounded queue）
+ *  生产者 CAS 抢占 tail 上的序号，写入消息后再发布槽位序号；入队不分配任何节点对象
+ *  poll 同样通过 CAS 推进 head，所以即使有多个线程同时 poll 也是安全的
+ */
+public class ArrayMailbox implements Mailbox {
+
+    private final Message[] buffer;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    /**
+     * @param capacity 容量，会向上取整到 2 的幂
+     */
+    public ArrayMailbox(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.buffer = new Message[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(Message msg) {
+        if (msg == null) {
+            throw new NullPointerException("msg");
+        }
+        long pos = tail.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = msg;
+                    sequences.lazySet(index, pos + 1);  // 发布：消费者看到序号后一定能看到消息
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;  // 这一圈的槽位还没被消费，信箱已满
+            } else {
+                pos = tail.get();  // 被其他生产者抢先了
+            }
+        }
+    }
+
+    /**
+     * 一次 CAS 占下连续的 n 个槽位再逐个发布；空位不够时退回逐条 offer（有界信箱的溢出策略在那里生效）
+     */
+    @Override
+    public int offerAll(Collection<Message> msgs) {
+        int n = msgs.size();
+        if (n == 0) {
+            return 0;
+        }
+        for (Message msg : msgs) {
+            if (msg == null) {
+                throw new NullPointerException("msg");
+            }
+        }
+        if (n <= capacity()) {
+            long pos = tail.get();
+            for (;;) {
+                long diff = sequences.get((int) (pos & mask)) - pos;
+                if (diff > 0) {
+                    pos = tail.get();
+                    continue;
+                }
+                if (diff < 0 || !rangeFree(pos, n)) {
+                    break;
+                }
+                if (tail.compareAndSet(pos, pos + n)) {
+                    long seq = pos;
+                    for (Message msg : msgs) {
+                        int index = (int) (seq & mask);
+                        buffer[index] = msg;
+                        sequences.lazySet(index, ++seq);
+                    }
+                    return n;
+                }
+                pos = tail.get();
+            }
+        }
+        return Mailbox.super.offerAll(msgs);
+    }
+
+    private boolean rangeFree(long pos, int n) {
+        for (long seq = pos + 1; seq < pos + n; seq++) {
+            if (sequences.get((int) (seq & mask)) != seq) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Message poll() {
+        return pollIf(null);
+    }
+
+    /**
+     * 队头的消息满足 test 时才取出，否则原样留在队头并返回 null；test 为 null 时不判断
+     * 判断和取出是原子的：CAS 推进 head 成功，说明判断过的那条没有被别人先取走
+     */
+    Message pollIf(Predicate<Message> test) {
+        long pos = head.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                Message msg = buffer[index];
+                if (test != null && !test.test(msg)) {
+                    return null;
+                }
+                if (head.compareAndSet(pos, pos + 1)) {
+                    buffer[index] = null;
+                    sequences.lazySet(index, pos + mask + 1);  // 把槽位还给下一圈的生产者
+                    return msg;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;  // 空，或者生产者已经占位但还没发布
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * 看一眼队头的消息，不取出；空或者队头还没发布时返回 null，只是一个瞬时值
+     */
+    Message peek() {
+        long pos = head.get();
+        return sequences.get((int) (pos & mask)) == pos + 1 ? buffer[(int) (pos & mask)] : null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    @Override
+    public int size() {
+        long h = head.get();
+        long size = tail.get() - h;
+        return (int) Math.max(0, Math.min(size, capacity()));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.actor.test3;
+
+import org.example.actor.MessageType;
+
+/***
+ *  一组按操作码下标的处理器，Actor 用 become/unbecome 在不同的 Behavior 之间切换
+ *  分发只是一次数组下标访问：没有哈希，也不会把 int 操作码装箱成 Integer
+ *  应在交给 actor 之前搭好，之后只有 actor 自己的线程会读它
+ */
+public final class Behavior {
+    final MessageHandler[] handlers = new MessageHandler[MessageType.size()];
+    // 无类型消息和没登记的操作码走这里；为空时落到 Actor.receive
+    MessageHandler otherwise;
+
+    public Behavior on(MessageType type, MessageHandler handler) {
+        handlers[type.getMessageId()] = handler;
+        return this;
+    }
+
+    public Behavior otherwise(MessageHandler handler) {
+        this.otherwise = handler;
+        return this;
+    }
+
+    MessageHandler handlerFor(int type) {
+        MessageHandler handler = type >= 0 && type < handlers.length ? handlers[type] : null;
+        return handler != null ? handler : otherwise;
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.actor.test3;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/***
+ *  带背压的有界信箱：在 ArrayMailbox 的基础上，满了以后按 OverflowStrategy 处理
+ *  信箱占用的内存在创建时就固定了，生产者再快也只会触发溢出策略，而不会把堆撑爆
+ *  每种策略触发的次数单独计数（LongAdder，多个发送方同时溢出也不会互相争用）
+ */
+public class BoundedMailbox extends ArrayMailbox {
+
+    private static final int SPIN_TRIES = 100;
+    private static final long MAX_PARK_NANOS = 1_000_000L;  // BLOCK 等待时最长 park 1ms 再重试
+
+    // 毒丸被挤掉的话 actor 就停不下来了，DROP_OLDEST 不淘汰它
+    private static final Predicate<Message> EVICTABLE = m -> m.payload != PoisonPill.INSTANCE;
+
+    private final OverflowStrategy strategy;
+    private Consumer<Message> deadLetters;
+    private final LongAdder[] overflowCounts = new LongAdder[OverflowStrategy.values().length];
+    private final LongAdder blockedNanos = new LongAdder();
+
+    public BoundedMailbox(int capacity, OverflowStrategy strategy) {
+        this(capacity, strategy, null);
+    }
+
+    /**
+     * @param deadLetters 接收溢出消息的地方，DEAD_LETTER 策略必填；
+     *                    DROP_OLDEST 为 null 时注册到 ActorSystem 后用系统的死信（OVERFLOW）
+     */
+    public BoundedMailbox(int capacity, OverflowStrategy strategy, Consumer<Message> deadLetters) {
+        super(capacity);
+        if (strategy == null) {
+            throw new NullPointerException("strategy");
+        }
+        if (strategy == OverflowStrategy.DEAD_LETTER && deadLetters == null) {
+            throw new IllegalArgumentException("DEAD_LETTER strategy needs a dead letter sink");
+        }
+        this.strategy = strategy;
+        this.deadLetters = deadLetters;
+        for (int i = 0; i < overflowCounts.length; i++) {
+            overflowCounts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public boolean offer(Message msg) {
+        if (super.offer(msg)) {
+            return true;
+        }
+        overflowCounts[strategy.ordinal()].increment();
+        switch (strategy) {
+            case BLOCK:
+                return offerBlocking(msg);
+            case DROP_NEWEST:
+                reject(msg);
+                return false;
+            case DROP_OLDEST:
+                return offerDroppingOldest(msg);
+            case FAIL:
+                throw new MailboxOverflowException("mailbox full, capacity = " + capacity());
+            case DEAD_LETTER:
+                deadLetters.accept(msg);
+                return false;
+            default:
+                throw new IllegalStateException("unknown strategy: " + strategy);
+        }
+    }
+
+    // ArrayMailbox 的 poll 是 CAS 推进的，发送方在这里顺手取走最老的一条是安全的
+    private boolean offerDroppingOldest(Message msg) {
+        do {
+            Message oldest = pollIf(EVICTABLE);
+            if (oldest != null) {
+                drop(oldest);
+                oldest.recycle();  // 已经从信箱里取出，死信当场转成了字符串，池化的信封可以还回去
+            } else if (isPoisonPill(peek())) {
+                // 队头是毒丸时丢新来的这条；新来的也是毒丸的话，队头那颗已经能让 actor 停下
+                drop(msg);
+                return false;
+            }
+        } while (!super.offer(msg));
+        return true;
+    }
+
+    private static boolean isPoisonPill(Message msg) {
+        return msg != null && msg.payload == PoisonPill.INSTANCE;
+    }
+
+    private void drop(Message msg) {
+        if (deadLetters != null) {
+            deadLetters.accept(msg);
+        }
+        reject(msg);
+    }
+
+    /**
+     * 注册时由 ActorSystem 调用：DROP_OLDEST 没有指定死信去处时，被丢掉的消息记为系统的 OVERFLOW 死信
+     */
+    void bindDeadLetters(Consumer<Message> systemDeadLetters) {
+        if (deadLetters == null) {
+            deadLetters = systemDeadLetters;
+        }
+    }
+
+    private boolean offerBlocking(Message msg) {
+        long start = System.nanoTime();
+        long parkNanos = 1_000L;
+        int tries = 0;
+        try {
+            while (!super.offer(msg)) {
+                if (Thread.currentThread().isInterrupted()) {
+                    reject(msg);
+                    return false;
+                }
+                if (++tries < SPIN_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, parkNanos);
+                    parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+                }
+            }
+            return true;
+        } finally {
+            blockedNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    // 被丢弃的 ask 不能让调用方永远等下去
+    private void reject(Message msg) {
+        if (msg.expectsReply()) {
+            msg.replyFailure(new MailboxOverflowException("message dropped by " + strategy));
+        }
+    }
+
+    public OverflowStrategy getStrategy() {
+        return strategy;
+    }
+
+    /**
+     * 某个策略被触发的次数；一个信箱只会用一种策略，其他策略的计数恒为 0
+     */
+    public long getOverflowCount(OverflowStrategy strategy) {
+        return overflowCounts[strategy.ordinal()].sum();
+    }
+
+    /**
+     * BLOCK 策略下发送方累计等待的时间
+     */
+    public long getBlockedNanos() {
+        return blockedNanos.sum();
+    }
+}
@@ -1,24 +1,81 @@
 package org.example.actor.test3;
 
+import org.example.actor.MessageType;
+import org.example.log.Logger;
+
+import java.util.List;
+
 public class BufferActor extends Actor {
-    private int num = 1;
+    private static final Logger LOG = Logger.getLogger(BufferActor.class);
+
+    private int num;
+
+    public BufferActor() {
+        this(1);
+    }
+
+    // 分片时初始值只放在一个分片上，其余分片从 0 开始
+    public BufferActor(int num) {
+        this.num = num;
+        setBatchReceive(true);
+    }
 
     @Override
     public void receive(Message message) {
+        num = apply(num, message);
+    }
+
+    // 整批消息在局部变量上折叠，最后只写回一次字段
+    @Override
+    protected void receiveBatch(List<Message> batch) {
+        int n = num;
+        for (int i = 0; i < batch.size(); i++) {
+            n = apply(n, batch.get(i));
+        }
+        num = n;
+    }
+
+    // 类型化消息按操作码 switch（tableswitch），value 是每次增减的数量；无类型消息兼容原来的字符串协议
+    private int apply(int num, Message message) {
+        switch (message.type) {
+            case MessageType.PRODUCT_ID:
+                return produce(num, message.value);
+            case MessageType.CONSUMER_ID:
+                return consume(num, message.value);
+            case MessageType.QUERY_ID:
+                message.reply(num);  // 回传值
+                return num;
+            case Message.UNTYPED:
+                break;
+            default:
+                unhandled(message);
+                return num;
+        }
         if ("add".equals(message.payload)) {
-            num++;
-            System.out.println("Produced. num = " + num);
+            num = produce(num, 1);
         } else if ("remove".equals(message.payload)) {
-            if (num > 0) {
-                num--;
-                System.out.println("Consumed. num = " + num);
-            } else {
-                System.out.println("No more items.");
-            }
+            num = consume(num, 1);
         } else if ("get".equals(message.payload)) {
-            if (message.future != null) {
-                message.future.complete(num);  // 回传值
-            }
+            message.reply(num);  // 回传值
+        } else {
+            unhandled(message);
+        }
+        return num;
+    }
+
+    private int produce(int num, long count) {
+        num += (int) count;
+        LOG.debug("Produced. num = {}", num);
+        return num;
+    }
+
+    private int consume(int num, long count) {
+        if (num > 0) {
+            num -= (int) Math.min(count, num);
+            LOG.debug("Consumed. num = {}", num);
+        } else {
+            LOG.debug("No more items.");
         }
+        return num;
     }
 }
@@ -0,0 +1,56 @@
+package org.example.actor.test3;
+
+import org.example.actor.DeadLetterOffice;
+
+import java.util.List;
+
+/***
+ *  ActorSystem.select 找不到名字时返回的 ref：所有消息记为 UNKNOWN_RECIPIENT 死信，等应答的调用方直接收到失败
+ */
+class DeadLetterRef extends ActorRef {
+    private final String name;
+    private final ActorSystem system;
+
+    DeadLetterRef(String name, ActorSystem system) {
+        super(null);
+        this.name = name;
+        this.system = system;
+    }
+
+    @Override
+    boolean deliver(Message message) {
+        system.getDeadLetters().publish(DeadLetterOffice.Reason.UNKNOWN_RECIPIENT, name, message);
+        if (message.expectsReply()) {
+            message.replyFailure(new IllegalStateException("no actor named [" + name + "]"));
+        }
+        return false;
+    }
+
+    @Override
+    int deliverAll(List<Message> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            deliver(batch.get(i));
+        }
+        return 0;
+    }
+
+    @Override
+    boolean isMessagePooling() {
+        return false;
+    }
+
+    @Override
+    ActorSystem system() {
+        return system;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int mailboxSize() {
+        return 0;
+    }
+}
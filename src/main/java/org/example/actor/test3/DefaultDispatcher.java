@@ -1,12 +1,33 @@
 package org.example.actor.test3;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class DefaultDispatcher implements Dispatcher {
-    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+    // 所有 DefaultDispatcher 共用这一个 8 线程的池
+    private static final SharedThreadPool SHARED = new SharedThreadPool("default-dispatcher", 8);
+
+    private final ThreadPoolExecutor pool = SHARED.acquire();
+    private final AtomicBoolean shutdown = new AtomicBoolean();
 
     @Override
     public void dispatch(Actor actor) {
-        pool.submit(actor);
+        pool.execute(actor);  // execute 不会像 submit 那样再包一层 FutureTask
+    }
+
+    @Override
+    public void shutdown() {
+        if (shutdown.compareAndSet(false, true)) {
+            SHARED.release(pool);
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        return pool.getPoolSize();
+    }
+
+    @Override
+    public int getActiveThreads() {
+        return pool.getActiveCount();
     }
 }
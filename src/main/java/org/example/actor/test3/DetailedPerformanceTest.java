@@ -1,5 +1,9 @@
 package org.example.actor.test3;
 
+import org.example.actor.MessageType;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.CompletableFuture;
@@ -67,14 +71,17 @@ public class DetailedPerformanceTest {
             long syncTime = runSynchronizedTest(operationCount, threads);
             long actorTellTime = runActorTellTest(operationCount, threads);
             long actorAskTime = runActorAskTest(operationCount, threads);
+            long actorRequestTime = runActorRequestTest(operationCount, threads);
             
             double syncThroughput = (double) operationCount / syncTime * 1000;
             double actorTellThroughput = (double) operationCount / actorTellTime * 1000;
             double actorAskThroughput = (double) operationCount / actorAskTime * 1000;
+            double actorRequestThroughput = (double) operationCount / actorRequestTime * 1000;
             
             System.out.println("Synchronized吞吐量: " + String.format("%.2f", syncThroughput) + " ops/s");
             System.out.println("Actor tell吞吐量: " + String.format("%.2f", actorTellThroughput) + " ops/s");
             System.out.println("Actor ask吞吐量: " + String.format("%.2f", actorAskThroughput) + " ops/s");
+            System.out.println("Actor request吞吐量: " + String.format("%.2f", actorRequestThroughput) + " ops/s");
         }
     }
     
@@ -117,12 +124,17 @@ public class DetailedPerformanceTest {
         
         // 测试Actor系统创建开销
         long startTime = System.currentTimeMillis();
+        List<ActorSystem> systems = new ArrayList<>();
         for (int i = 0; i < 1000; i++) {
             ActorSystem system = new ActorSystem(new DefaultDispatcher());
             BufferActor actor = new BufferActor();
             ActorRef ref = system.register("actor" + i, actor);
+            systems.add(system);
         }
         long actorSystemCreationTime = System.currentTimeMillis() - startTime;
+        for (ActorSystem system : systems) {
+            system.terminate();
+        }
         
         // 测试Synchronized对象创建开销
         startTime = System.currentTimeMillis();
@@ -148,6 +160,9 @@ public class DetailedPerformanceTest {
         System.out.println("\n1. 高并发写操作测试");
         long syncWriteTime = runSynchronizedWriteTest(operationCount, threadCount);
         long actorWriteTime = runActorWriteTest(operationCount, threadCount);
+        long actorBatchWriteTime = runActorBatchWriteTest(operationCount, threadCount, 64);
+        long actorShardedWriteTime = runActorShardedWriteTest(operationCount, threadCount,
+                Runtime.getRuntime().availableProcessors());
         
         // 测试2: 高并发读操作
         System.out.println("\n2. 高并发读操作测试");
@@ -160,7 +175,8 @@ public class DetailedPerformanceTest {
         long actorMixedTime = runActorMixedTest(operationCount, threadCount);
         
         System.out.println("\n=== 并发场景测试结果 ===");
-        System.out.println("写操作 - Sync: " + syncWriteTime + "ms, Actor: " + actorWriteTime + "ms");
+        System.out.println("写操作 - Sync: " + syncWriteTime + "ms, Actor: " + actorWriteTime + "ms, Actor tellAll: " + actorBatchWriteTime
+                + "ms, Actor sharded: " + actorShardedWriteTime + "ms");
         System.out.println("读操作 - Sync: " + syncReadTime + "ms, Actor: " + actorReadTime + "ms");
         System.out.println("混合操作 - Sync: " + syncMixedTime + "ms, Actor: " + actorMixedTime + "ms");
     }
@@ -210,9 +226,9 @@ public class DetailedPerformanceTest {
                 int operationsPerThread = operationCount / threadCount;
                 for (int j = 0; j < operationsPerThread; j++) {
                     if (j % 2 == 0) {
-                        bufferRef.tell("add", null);
+                        bufferRef.tell(MessageType.Product, 1, null);
                     } else {
-                        bufferRef.tell("remove", null);
+                        bufferRef.tell(MessageType.Consumer, 1, null);
                     }
                 }
                 latch.countDown();
@@ -226,14 +242,18 @@ public class DetailedPerformanceTest {
             e.printStackTrace();
         }
         
-        // 等待Actor处理完所有消息
+        // 等待Actor处理完所有消息（所有信箱清空、没有 actor 在执行）
         try {
-            Thread.sleep(100);
+            if (!system.awaitIdle(30, TimeUnit.SECONDS)) {
+                System.out.println("等待 Actor 处理完消息超时");
+            }
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
         
-        return System.currentTimeMillis() - startTime;
+        long duration = System.currentTimeMillis() - startTime;
+        system.terminate();
+        return duration;
     }
     
     private static long runActorAskTest(int operationCount, int threadCount) {
@@ -250,9 +270,9 @@ public class DetailedPerformanceTest {
                 int operationsPerThread = operationCount / threadCount;
                 for (int j = 0; j < operationsPerThread; j++) {
                     if (j % 2 == 0) {
-                        bufferRef.tell("add", null);
+                        bufferRef.tell(MessageType.Product, 1, null);
                     } else {
-                        CompletableFuture<Object> future = bufferRef.ask("get", null);
+                        CompletableFuture<Object> future = bufferRef.ask(MessageType.Query, 0, null);
                         try {
                             future.get(1, TimeUnit.SECONDS);
                         } catch (Exception e) {
@@ -271,7 +291,49 @@ public class DetailedPerformanceTest {
             e.printStackTrace();
         }
         
-        return System.currentTimeMillis() - startTime;
+        long duration = System.currentTimeMillis() - startTime;
+        system.terminate();
+        return duration;
+    }
+    
+    // 和 runActorAskTest 相同的负载，get 走应答槽位而不是 CompletableFuture
+    private static long runActorRequestTest(int operationCount, int threadCount) {
+        ActorSystem system = new ActorSystem(new DefaultDispatcher());
+        BufferActor bufferActor = new BufferActor();
+        ActorRef bufferRef = system.register("buffer", bufferActor);
+        
+        CountDownLatch latch = new CountDownLatch(threadCount);
+        
+        long startTime = System.currentTimeMillis();
+        
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                int operationsPerThread = operationCount / threadCount;
+                for (int j = 0; j < operationsPerThread; j++) {
+                    if (j % 2 == 0) {
+                        bufferRef.tell(MessageType.Product, 1, null);
+                    } else {
+                        try {
+                            bufferRef.request(MessageType.Query, 0, null, 1, TimeUnit.SECONDS);
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+                latch.countDown();
+            });
+            thread.start();
+        }
+        
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+        
+        long duration = System.currentTimeMillis() - startTime;
+        system.terminate();
+        return duration;
     }
     
     // 复杂消息测试
@@ -336,12 +398,16 @@ public class DetailedPerformanceTest {
         }
         
         try {
-            Thread.sleep(100);
+            if (!system.awaitIdle(30, TimeUnit.SECONDS)) {
+                System.out.println("等待 Actor 处理完消息超时");
+            }
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
         
-        return System.currentTimeMillis() - startTime;
+        long duration = System.currentTimeMillis() - startTime;
+        system.terminate();
+        return duration;
     }
     
     // 混合操作测试
@@ -393,11 +459,11 @@ public class DetailedPerformanceTest {
                 int operationsPerThread = operationCount / threadCount;
                 for (int j = 0; j < operationsPerThread; j++) {
                     if (j % 3 == 0) {
-                        bufferRef.tell("add", null);
+                        bufferRef.tell(MessageType.Product, 1, null);
                     } else if (j % 3 == 1) {
-                        bufferRef.tell("remove", null);
+                        bufferRef.tell(MessageType.Consumer, 1, null);
                     } else {
-                        bufferRef.tell("get", null);
+                        bufferRef.tell(MessageType.Query, 0, null);
                     }
                 }
                 latch.countDown();
@@ -412,12 +478,16 @@ public class DetailedPerformanceTest {
         }
         
         try {
-            Thread.sleep(100);
+            if (!system.awaitIdle(30, TimeUnit.SECONDS)) {
+                System.out.println("等待 Actor 处理完消息超时");
+            }
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
         
-        return System.currentTimeMillis() - startTime;
+        long duration = System.currentTimeMillis() - startTime;
+        system.terminate();
+        return duration;
     }
     
     // 写操作测试
@@ -460,7 +530,7 @@ public class DetailedPerformanceTest {
             Thread thread = new Thread(() -> {
                 int operationsPerThread = operationCount / threadCount;
                 for (int j = 0; j < operationsPerThread; j++) {
-                    bufferRef.tell("add", null);
+                    bufferRef.tell(MessageType.Product, 1, null);
                 }
                 latch.countDown();
             });
@@ -474,12 +544,97 @@ public class DetailedPerformanceTest {
         }
         
         try {
-            Thread.sleep(100);
+            if (!system.awaitIdle(30, TimeUnit.SECONDS)) {
+                System.out.println("等待 Actor 处理完消息超时");
+            }
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
         
-        return System.currentTimeMillis() - startTime;
+        long duration = System.currentTimeMillis() - startTime;
+        system.terminate();
+        return duration;
+    }
+    
+    // 分片写：每个发送线程固定写一个分片，最后 ask 一次，把各分片的计数加起来核对
+    private static long runActorShardedWriteTest(int operationCount, int threadCount, int shards) {
+        ActorSystem system = new ActorSystem(new DefaultDispatcher());
+        ShardedRef bufferRef = system.registerSharded("buffer", shards,
+                i -> new BufferActor(i == 0 ? 1 : 0), m -> m.type == MessageType.QUERY_ID,
+                (a, b) -> (Integer) a + (Integer) b);
+
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        long startTime = System.currentTimeMillis();
+
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                int operationsPerThread = operationCount / threadCount;
+                for (int j = 0; j < operationsPerThread; j++) {
+                    bufferRef.tell(MessageType.Product, 1, null);
+                }
+                latch.countDown();
+            });
+            thread.start();
+        }
+
+        try {
+            latch.await();
+            // 各分片的信箱都是 FIFO，get 排在所有写之后，拿到的就是最终计数
+            Object total = bufferRef.ask(MessageType.Query, 0, null).get();
+            System.out.println("分片计数: " + total);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        system.terminate();
+        return duration;
+    }
+
+    // 批量写：每个线程攒够 batchSize 条再 tellAll 一次
+    private static long runActorBatchWriteTest(int operationCount, int threadCount, int batchSize) {
+        ActorSystem system = new ActorSystem(new DefaultDispatcher());
+        BufferActor bufferActor = new BufferActor();
+        ActorRef bufferRef = system.register("buffer", bufferActor);
+
+        List<String> batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            batch.add("add");
+        }
+
+        CountDownLatch latch = new CountDownLatch(threadCount);
+
+        long startTime = System.currentTimeMillis();
+
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(() -> {
+                int operationsPerThread = operationCount / threadCount;
+                for (int j = 0; j < operationsPerThread; j += batchSize) {
+                    bufferRef.tellAll(batch.subList(0, Math.min(batchSize, operationsPerThread - j)), null);
+                }
+                latch.countDown();
+            });
+            thread.start();
+        }
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        try {
+            if (!system.awaitIdle(30, TimeUnit.SECONDS)) {
+                System.out.println("等待 Actor 处理完消息超时");
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        system.terminate();
+        return duration;
     }
     
     // 读操作测试
@@ -521,7 +676,7 @@ public class DetailedPerformanceTest {
         
         // 先添加一些数据
         for (int i = 0; i < 1000; i++) {
-            bufferRef.tell("add", null);
+            bufferRef.tell(MessageType.Product, 1, null);
         }
         
         CountDownLatch latch = new CountDownLatch(threadCount);
@@ -532,7 +687,7 @@ public class DetailedPerformanceTest {
             Thread thread = new Thread(() -> {
                 int operationsPerThread = operationCount / threadCount;
                 for (int j = 0; j < operationsPerThread; j++) {
-                    bufferRef.tell("get", null);
+                    bufferRef.tell(MessageType.Query, 0, null);
                 }
                 latch.countDown();
             });
@@ -546,12 +701,16 @@ public class DetailedPerformanceTest {
         }
         
         try {
-            Thread.sleep(100);
+            if (!system.awaitIdle(30, TimeUnit.SECONDS)) {
+                System.out.println("等待 Actor 处理完消息超时");
+            }
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
         
-        return System.currentTimeMillis() - startTime;
+        long duration = System.currentTimeMillis() - startTime;
+        system.terminate();
+        return duration;
     }
     
     // 复杂消息类
@@ -2,4 +2,24 @@ package org.example.actor.test3;
 
 public interface Dispatcher {
     void dispatch(Actor actor);
+
+    /**
+     * 释放 dispatcher 占用的线程，ActorSystem.terminate 时调用；之后不能再 dispatch
+     */
+    default void shutdown() {
+    }
+
+    /**
+     * 工作线程数，给指标用；拿不到时返回 -1
+     */
+    default int getPoolSize() {
+        return -1;
+    }
+
+    /**
+     * 正在执行 actor 的线程数（近似值），给指标用；拿不到时返回 -1
+     */
+    default int getActiveThreads() {
+        return -1;
+    }
 }
@@ -0,0 +1,15 @@
+package org.example.actor.test3;
+
+/***
+ *  dispatcher 的 JMX 视图，拿不到的值为 -1
+ *  对象名形如 org.example.actor:type=Dispatcher,system=...,name=...
+ */
+public interface DispatcherMetricsMXBean {
+    String getDispatcherType();
+
+    int getPoolSize();
+
+    int getActiveThreads();
+
+    int getIdleThreads();
+}
@@ -0,0 +1,62 @@
+package org.example.actor.test3;
+
+import org.example.actor.DeadLetterOffice;
+import org.example.log.Logger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/***
+ *  DROP_OLDEST 的有界信箱：被挤掉的消息记为系统的 OVERFLOW 死信；队头是毒丸时不挤掉它，丢新来的那条
+ */
+public class DropOldestTest {
+    private static final Logger LOG = Logger.getLogger(DropOldestTest.class);
+
+    public static void main(String[] args) throws Exception {
+        ActorSystem system = new ActorSystem(new DefaultDispatcher());
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> received = new CopyOnWriteArrayList<>();
+
+        Actor actor = new Actor() {
+            @Override
+            public void receive(Message message) {
+                received.add(message.payload);
+                if ("block".equals(message.payload)) {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }
+        };
+        ActorRef ref = system.register("bounded", actor, () -> new BoundedMailbox(2, OverflowStrategy.DROP_OLDEST));
+
+        // actor 卡在第一条消息里，后面的消息都留在信箱中
+        ref.tell("block", null);
+        started.await();
+        ref.tell("a", null);
+        ref.tell("b", null);
+        ref.tell("c", null);                    // 挤掉 a
+        ref.tell(PoisonPill.INSTANCE, null);    // 挤掉 b
+        ref.tell("d", null);                    // 挤掉 c，毒丸到了队头
+        ref.tell("e", null);                    // 队头是毒丸，丢掉 e
+
+        long overflow = system.getDeadLetters().getCount(DeadLetterOffice.Reason.OVERFLOW);
+        if (overflow != 4) {
+            throw new IllegalStateException("expected 4 overflow dead letters, got " + overflow);
+        }
+
+        release.countDown();
+        system.awaitIdle(5, TimeUnit.SECONDS);
+        if (!actor.isStopped() || received.size() != 1) {
+            throw new IllegalStateException("poison pill was evicted, received " + received);
+        }
+        LOG.info("overflow dead letters = {}, received = {}", overflow, received.toString());
+        system.terminate();
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.actor.test3;
+
+import java.util.Collection;
+
+/***
+ *  actor 的信箱，从 Actor 中抽出来，方便按 actor 选择不同的实现
+ *  约定：offer 可以被任意多个线程并发调用；poll 只由正在执行该 actor 的线程调用（单消费者）
+ *  size / isEmpty 在消费者线程之外调用时只是一个近似值，只能用于监控和调度参考
+ */
+public interface Mailbox {
+
+    /**
+     * 投递一条消息，有界信箱已满时返回 false；BoundedMailbox 会先按自己的溢出策略处理
+     */
+    boolean offer(Message msg);
+
+    /**
+     * 批量投递，默认逐条 offer；能一次发布整批的实现应该覆盖它
+     *
+     * @return 实际放进信箱的条数
+     */
+    default int offerAll(Collection<Message> msgs) {
+        int accepted = 0;
+        for (Message msg : msgs) {
+            if (offer(msg)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * 取出一条消息，信箱为空时返回 null
+     */
+    Message poll();
+
+    boolean isEmpty();
+
+    int size();
+}
@@ -0,0 +1,12 @@
+package org.example.actor.test3;
+
+/***
+ *  有界信箱溢出：FAIL 策略下抛给发送方；被丢弃的 ask 消息也用它结束 future，避免调用方一直等
+ */
+public class MailboxOverflowException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public MailboxOverflowException(String message) {
+        super(message);
+    }
+}
@@ -1,11 +1,33 @@
 package org.example.actor.test3;
+import org.example.actor.MessageType;
+
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class Message {
-    public final Object payload;
-    public final ActorRef sender;
-    public final CompletableFuture<Object> future;  // 用于 ask 模式
+    // type 的取值：没有操作码，按 payload 处理
+    public static final int UNTYPED = -1;
+
+    // 字段不再是 final：池化的信封会被 MessagePool 反复填充、复用
+    public Object payload;
+    public ActorRef sender;
+    public CompletableFuture<Object> future;  // 用于 ask 模式
+    // 类型化协议：操作码取自 MessageType 的 id，数值参数放在 value 里，不用装箱
+    public int type = UNTYPED;
+    public long value;
+
+    // 非空表示这个信封来自池子，receive 结束后要还回去
+    MessagePool pool;
+    // ActorRef.request 的应答通道，和 future 二选一
+    ReplySlots replySlots;
+    long correlationId;
+    // 进信箱的时刻（System.nanoTime），只有开启了指标才会填，0 表示没有记录
+    long enqueuedAt;
+    // scatter-gather 的副本共用：还有几份没有失败，降到 0 才把失败告诉调用方
+    AtomicInteger gatherRemaining;
+    // 这一份是否已经计过失败：被拒收时 actor 和路由可能都会回复失败，只算一次
+    boolean gatherFailed;
 
     public Message(Object payload, ActorRef sender, CompletableFuture<Object> future) {
         this.payload = payload;
@@ -17,7 +39,80 @@ public class Message {
         return new Message(payload, sender, null);
     }
 
+    public static Message typed(int type, long value, ActorRef sender) {
+        Message msg = new Message(null, sender, null);
+        msg.type = type;
+        msg.value = value;
+        return msg;
+    }
+
+    public static Message typed(MessageType type, long value, ActorRef sender) {
+        return typed(type.getMessageId(), value, sender);
+    }
+
     public static Message ask(Object payload, ActorRef sender, CompletableFuture<Object> future) {
         return new Message(payload, sender, future);
     }
+
+    /**
+     * 这条消息是否在等应答（ask 或 request）
+     */
+    public boolean expectsReply() {
+        return future != null || replySlots != null;
+    }
+
+    /**
+     * 回复发送方；tell 过来的消息没有人等，直接忽略
+     */
+    public void reply(Object value) {
+        if (future != null) {
+            future.complete(value);
+        } else if (replySlots != null) {
+            replySlots.complete(correlationId, value);
+        }
+    }
+
+    public void replyFailure(Throwable failure) {
+        if (gatherRemaining != null) {
+            if (gatherFailed) {
+                return;
+            }
+            gatherFailed = true;
+            if (gatherRemaining.decrementAndGet() > 0) {
+                return;  // 别的副本还可能成功应答
+            }
+        }
+        if (future != null) {
+            future.completeExceptionally(failure);
+        } else if (replySlots != null) {
+            replySlots.fail(correlationId, failure);
+        }
+    }
+
+    // 广播时每个 routee 一份信封，应答通道共用
+    Message copy() {
+        Message copy = new Message(payload, sender, future);
+        copy.type = type;
+        copy.value = value;
+        copy.replySlots = replySlots;
+        copy.correlationId = correlationId;
+        copy.gatherRemaining = gatherRemaining;
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        if (type == UNTYPED) {
+            return String.valueOf(payload);
+        }
+        // typed(int, ...) 可以带枚举之外的自定义操作码，死信日志和失败信息里都会打印它，这里不能抛异常
+        String op = type >= 0 && type < MessageType.size() ? MessageType.fromMessageId(type).getNote() : "op" + type;
+        return op + "(" + value + ")";
+    }
+
+    void recycle() {
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
 }
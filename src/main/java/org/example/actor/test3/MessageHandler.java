@@ -0,0 +1,9 @@
+package org.example.actor.test3;
+
+/***
+ *  类型化消息的处理器，按操作码登记在 Actor 的处理器表里
+ */
+@FunctionalInterface
+public interface MessageHandler {
+    void handle(Message message);
+}
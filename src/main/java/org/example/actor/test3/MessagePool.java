@@ -0,0 +1,59 @@
+package org.example.actor.test3;
+
+/***
+ *  tell 用的信封池：空闲信封放在一个预分配的 ArrayMailbox 里，取、还都只是一次 CAS，不分配对象
+ *  信封在生产者线程取出、在 actor 线程归还，所以用的是一个共享的无锁环，而不是 ThreadLocal 池
+ *  池子空了就临时 new 一个，池子满了多余的信封直接交给 GC，两种情况都不会阻塞
+ *  在途信封数（信箱里积压的消息）超过池容量时，多出来的部分会反复分配，所以容量要不小于信箱容量
+ */
+public class MessagePool {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final ArrayMailbox free;
+
+    public MessagePool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MessagePool(int capacity) {
+        this.free = new ArrayMailbox(capacity);
+    }
+
+    public Message acquire(Object payload, ActorRef sender) {
+        Message msg = free.poll();
+        if (msg == null) {
+            msg = new Message(payload, sender, null);
+            msg.pool = this;
+            return msg;
+        }
+        msg.payload = payload;
+        msg.sender = sender;
+        return msg;
+    }
+
+    public Message acquire(int type, long value, ActorRef sender) {
+        Message msg = acquire(null, sender);
+        msg.type = type;
+        msg.value = value;
+        return msg;
+    }
+
+    void release(Message msg) {
+        msg.payload = null;
+        msg.sender = null;
+        msg.future = null;
+        msg.type = Message.UNTYPED;
+        msg.value = 0;
+        msg.replySlots = null;
+        msg.correlationId = 0;
+        msg.enqueuedAt = 0;
+        msg.gatherRemaining = null;
+        msg.gatherFailed = false;
+        free.offer(msg);
+    }
+
+    public int available() {
+        return free.size();
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.actor.test3;
+
+import org.example.actor.LatencyHistogram;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/***
+ *  把 ActorSystem 的指标注册到平台 MBeanServer 上
+ *  MBean 只持有 actor / dispatcher 的引用，每次读属性时现算，不在记录路径上多做任何事
+ */
+class MetricsMBeans {
+    static final String DOMAIN = "org.example.actor";
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    private final String systemName;
+    private final List<ObjectName> registered = new CopyOnWriteArrayList<>();
+
+    MetricsMBeans(String systemName) {
+        this.systemName = systemName;
+    }
+
+    void registerDispatcher(Dispatcher dispatcher) {
+        register("Dispatcher", dispatcher.getClass().getSimpleName(), new DispatcherBean(dispatcher));
+    }
+
+    void registerActor(Actor actor) {
+        register("Actor", actor.getName(), new ActorBean(actor));
+    }
+
+    synchronized void unregisterActor(Actor actor) {
+        try {
+            ObjectName objectName = objectName("Actor", actor.getName());
+            if (registered.remove(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            // 已经被别人注销了
+        }
+    }
+
+    synchronized void unregisterAll() {
+        for (ObjectName name : registered) {
+            try {
+                server.unregisterMBean(name);
+            } catch (JMException e) {
+                // 已经被别人注销了
+            }
+        }
+        registered.clear();
+    }
+
+    // 同名的 actor 重新注册时换成新的；和 registerMBeans 并发注册时同一个 actor 也可能走到这里两次
+    private synchronized void register(String type, String name, Object bean) {
+        try {
+            ObjectName objectName = objectName(type, name);
+            if (registered.remove(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(bean, objectName);
+            registered.add(objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register MBean for " + type + " [" + name + "]", e);
+        }
+    }
+
+    private ObjectName objectName(String type, String name) throws JMException {
+        return new ObjectName(DOMAIN + ":type=" + type
+                + ",system=" + ObjectName.quote(systemName) + ",name=" + ObjectName.quote(name));
+    }
+
+    static final class DispatcherBean implements DispatcherMetricsMXBean {
+        private final Dispatcher dispatcher;
+
+        DispatcherBean(Dispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        @Override
+        public String getDispatcherType() {
+            return dispatcher.getClass().getName();
+        }
+
+        @Override
+        public int getPoolSize() {
+            return dispatcher.getPoolSize();
+        }
+
+        @Override
+        public int getActiveThreads() {
+            return dispatcher.getActiveThreads();
+        }
+
+        @Override
+        public int getIdleThreads() {
+            int pool = dispatcher.getPoolSize();
+            int active = dispatcher.getActiveThreads();
+            return pool < 0 || active < 0 ? -1 : Math.max(0, pool - active);
+        }
+    }
+
+    // 指标没开过时计数都是 0
+    static final class ActorBean implements ActorMetricsMXBean {
+        private static final LatencyHistogram.Snapshot EMPTY = new LatencyHistogram().snapshot();
+
+        private final Actor actor;
+
+        ActorBean(Actor actor) {
+            this.actor = actor;
+        }
+
+        private LatencyHistogram.Snapshot queueWait() {
+            ActorMetrics m = actor.getMetrics();
+            return m == null ? EMPTY : m.queueWait.snapshot();
+        }
+
+        private LatencyHistogram.Snapshot receiveTime() {
+            ActorMetrics m = actor.getMetrics();
+            return m == null ? EMPTY : m.receiveTime.snapshot();
+        }
+
+        @Override
+        public long getReceived() {
+            ActorMetrics m = actor.getMetrics();
+            return m == null ? 0 : m.received.sum();
+        }
+
+        @Override
+        public long getProcessed() {
+            ActorMetrics m = actor.getMetrics();
+            return m == null ? 0 : m.processed.sum();
+        }
+
+        @Override
+        public long getFailed() {
+            ActorMetrics m = actor.getMetrics();
+            return m == null ? 0 : m.failed.sum();
+        }
+
+        @Override
+        public int getMailboxSize() {
+            return actor.getMailbox().size();
+        }
+
+        @Override
+        public double getQueueWaitMean() {
+            return queueWait().getMean();
+        }
+
+        @Override
+        public long getQueueWaitP50() {
+            return queueWait().getValueAtPercentile(50);
+        }
+
+        @Override
+        public long getQueueWaitP99() {
+            return queueWait().getValueAtPercentile(99);
+        }
+
+        @Override
+        public long getQueueWaitMax() {
+            return queueWait().getMax();
+        }
+
+        @Override
+        public double getReceiveTimeMean() {
+            return receiveTime().getMean();
+        }
+
+        @Override
+        public long getReceiveTimeP50() {
+            return receiveTime().getValueAtPercentile(50);
+        }
+
+        @Override
+        public long getReceiveTimeP99() {
+            return receiveTime().getValueAtPercentile(99);
+        }
+
+        @Override
+        public long getReceiveTimeMax() {
+            return receiveTime().getMax();
+        }
+
+        @Override
+        public void reset() {
+            ActorMetrics m = actor.getMetrics();
+            if (m != null) {
+                m.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.actor.test3;
+
+import java.util.Collections;
+import java.util.List;
+
+/***
+ *  ActorSystem.snapshotMetrics 的返回值：dispatcher 的线程使用情况加上每个 actor 的指标
+ *  线程数由 dispatcher 提供，拿不到时为 -1
+ */
+public final class MetricsSnapshot {
+    private final String dispatcher;
+    private final int poolSize;
+    private final int activeThreads;
+    private final List<ActorMetrics.Snapshot> actors;
+
+    MetricsSnapshot(String dispatcher, int poolSize, int activeThreads, List<ActorMetrics.Snapshot> actors) {
+        this.dispatcher = dispatcher;
+        this.poolSize = poolSize;
+        this.activeThreads = activeThreads;
+        this.actors = Collections.unmodifiableList(actors);
+    }
+
+    public String getDispatcher() {
+        return dispatcher;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getActiveThreads() {
+        return activeThreads;
+    }
+
+    public int getIdleThreads() {
+        return poolSize < 0 || activeThreads < 0 ? -1 : Math.max(0, poolSize - activeThreads);
+    }
+
+    public List<ActorMetrics.Snapshot> getActors() {
+        return actors;
+    }
+
+    public ActorMetrics.Snapshot getActor(String name) {
+        for (ActorMetrics.Snapshot actor : actors) {
+            if (actor.getName().equals(name)) {
+                return actor;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(dispatcher).append(": pool=").append(poolSize)
+                .append(", active=").append(activeThreads)
+                .append(", idle=").append(getIdleThreads());
+        for (ActorMetrics.Snapshot actor : actors) {
+            sb.append('\n').append(actor);
+        }
+        return sb.toString();
+    }
+}
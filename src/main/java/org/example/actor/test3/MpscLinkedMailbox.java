@@ -0,0 +1,112 @@
+package org.example.actor.test3;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/***
+ *  默认信箱：无界、无锁的多生产者单消费者链表队列（Vyukov MPSC）
+ *  生产者只需要一次 getAndSet 抢占 tail，再把前驱节点的 next 指向自己；消费者只移动 head，不需要 CAS
+ *  相比 LinkedBlockingQueue 省掉了 ReentrantLock 和 Condition 的 signal
+ *  size 不遍历链表：投递数减去取走数，O(1) 的近似值，SmallestMailbox 路由每次投递都会读它
+ */
+public class MpscLinkedMailbox implements Mailbox {
+
+    private static final class Node {
+        private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+        Message msg;
+        volatile Node next;
+
+        Node(Message msg) {
+            this.msg = msg;
+        }
+    }
+
+    // 生产者竞争的一端
+    private final AtomicReference<Node> tail;
+    // 只有消费者访问，head 永远指向一个已经被取走的哨兵节点
+    private Node head;
+    // 生产者之间各自累加不同的 cell，不争用同一个缓存行
+    private final LongAdder offered = new LongAdder();
+    private static final AtomicLongFieldUpdater<MpscLinkedMailbox> POLLED =
+            AtomicLongFieldUpdater.newUpdater(MpscLinkedMailbox.class, "polled");
+    // 只有消费者写
+    private volatile long polled;
+
+    public MpscLinkedMailbox() {
+        Node stub = new Node(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    @Override
+    public boolean offer(Message msg) {
+        if (msg == null) {
+            throw new NullPointerException("msg");
+        }
+        Node node = new Node(msg);
+        offered.increment();  // 先计数再发布，size 只会短暂偏大，不会小于实际
+        Node prev = tail.getAndSet(node);
+        // getAndSet 与下面这一步之间，消费者会暂时看不到这个节点，调用方在 offer 之后才去调度，所以不会丢
+        Node.NEXT.lazySet(prev, node);
+        return true;
+    }
+
+    /**
+     * 先在本线程里把整批节点串好，再用一次 getAndSet 接到队尾，整批只发布一次
+     */
+    @Override
+    public int offerAll(Collection<Message> msgs) {
+        Node first = null;
+        Node last = null;
+        int count = 0;
+        for (Message msg : msgs) {
+            if (msg == null) {
+                throw new NullPointerException("msg");
+            }
+            Node node = new Node(msg);
+            if (first == null) {
+                first = node;
+            } else {
+                Node.NEXT.lazySet(last, node);  // 还没发布，不需要 volatile 写的开销
+            }
+            last = node;
+            count++;
+        }
+        if (first == null) {
+            return 0;
+        }
+        offered.add(count);
+        Node prev = tail.getAndSet(last);
+        Node.NEXT.lazySet(prev, first);
+        return count;
+    }
+
+    @Override
+    public Message poll() {
+        Node next = head.next;
+        if (next == null) {
+            return null;
+        }
+        Message msg = next.msg;
+        next.msg = null;  // 新的哨兵不再持有消息，帮助 GC
+        head = next;
+        POLLED.lazySet(this, polled + 1);
+        return msg;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+    @Override
+    public int size() {
+        long taken = polled;  // 先读取走数，并发时结果偏大而不是出现负数
+        return (int) Math.max(0, Math.min(offered.sum() - taken, Integer.MAX_VALUE));
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.actor.test3;
+
+/***
+ *  有界信箱满了以后怎么处理新来的消息
+ */
+public enum OverflowStrategy {
+    // 发送方自旋/park 等待，直到有空位（actor 不要给自己满的信箱发消息，否则会卡死）
+    BLOCK,
+    // 丢掉新来的这条
+    DROP_NEWEST,
+    // 丢掉信箱里最老的一条，给新消息腾位置
+    DROP_OLDEST,
+    // 直接在发送方抛出 MailboxOverflowException
+    FAIL,
+    // 把新来的这条交给死信处理
+    DEAD_LETTER
+}
@@ -1,8 +1,11 @@
 package org.example.actor.test3;
 
+import org.example.actor.MessageType;
+
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * test3性能对比测试：Synchronized方式 vs Actor方式
@@ -60,9 +63,10 @@ public class PerformanceTest {
         ActorRef bufferRef = system.register("buffer", bufferActor);
         
         for (int i = 0; i < WARMUP_COUNT; i++) {
-            bufferRef.tell("add", null);
-            bufferRef.tell("remove", null);
+            bufferRef.tell(MessageType.Product, 1, null);
+            bufferRef.tell(MessageType.Consumer, 1, null);
         }
+        system.terminate();
         
         System.out.println("预热完成\n");
     }
@@ -136,9 +140,9 @@ public class PerformanceTest {
                 int operationsPerThread = OPERATION_COUNT / THREAD_COUNT;
                 for (int j = 0; j < operationsPerThread; j++) {
                     if (j % 2 == 0) {
-                        bufferRef.tell("add", null);
+                        bufferRef.tell(MessageType.Product, 1, null);
                     } else {
-                        bufferRef.tell("remove", null);
+                        bufferRef.tell(MessageType.Consumer, 1, null);
                     }
                     totalOperations.incrementAndGet();
                 }
@@ -153,15 +157,18 @@ public class PerformanceTest {
             e.printStackTrace();
         }
         
-        // 等待所有消息处理完成
+        // 等待所有消息处理完成（所有信箱清空、没有 actor 在执行）
         try {
-            Thread.sleep(100); // 给Actor一些时间处理剩余消息
+            if (!system.awaitIdle(30, TimeUnit.SECONDS)) {
+                System.out.println("等待 Actor 处理完消息超时");
+            }
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
         
         long endTime = System.currentTimeMillis();
         long duration = endTime - startTime;
+        system.terminate();  // 释放 dispatcher 的线程，不留给后面的测试
         
         System.out.println("Actor tell方式完成，总操作数: " + totalOperations.get());
         System.out.println("耗时: " + duration + "ms");
@@ -193,10 +200,10 @@ public class PerformanceTest {
                 int operationsPerThread = OPERATION_COUNT / THREAD_COUNT;
                 for (int j = 0; j < operationsPerThread; j++) {
                     if (j % 2 == 0) {
-                        bufferRef.tell("add", null);
+                        bufferRef.tell(MessageType.Product, 1, null);
                     } else {
                         // 使用ask模式获取当前值
-                        CompletableFuture<Object> future = bufferRef.ask("get", null);
+                        CompletableFuture<Object> future = bufferRef.ask(MessageType.Query, 0, null);
                         try {
                             future.get(); // 等待响应
                         } catch (Exception e) {
@@ -218,6 +225,7 @@ public class PerformanceTest {
         
         long endTime = System.currentTimeMillis();
         long duration = endTime - startTime;
+        system.terminate();  // 释放 dispatcher 的线程，不留给后面的测试
         
         System.out.println("Actor ask方式完成，总操作数: " + totalOperations.get());
         System.out.println("耗时: " + duration + "ms");
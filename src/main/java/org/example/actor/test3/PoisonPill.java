@@ -0,0 +1,17 @@
+package org.example.actor.test3;
+
+/***
+ *  毒丸：{@code ref.tell(PoisonPill.INSTANCE, null)} 让 actor 处理完排在它前面的消息后停止，排在后面的记为 STOPPED 死信
+ *  由 Actor 在取信时识别，不会进 receive / receiveBatch；发给路由 ref 时和普通消息一样只落到一个 routee
+ */
+public final class PoisonPill {
+    public static final PoisonPill INSTANCE = new PoisonPill();
+
+    private PoisonPill() {
+    }
+
+    @Override
+    public String toString() {
+        return "PoisonPill";
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.actor.test3;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/***
+ *  ask 的高性能应答通道：预分配一组应答槽位，按关联 id 索引，代替每次 ask 都 new 一个 CompletableFuture
+ *  关联 id = 代数 << indexBits | 槽位下标；槽位每被借出一次代数加一，迟到的旧应答因为代数对不上会被直接忽略
+ *  等待方先自旋、再 yield、最后 parkNanos，应答方写完结果后 unpark 等待线程
+ */
+final class ReplySlots {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // 槽位状态的低 2 位是阶段，高位是代数
+    private static final int FREE = 0;
+    private static final int PENDING = 1;
+    private static final int COMPLETING = 2;
+    private static final int DONE = 3;
+
+    // 单核机器上自旋只会抢走应答方的 CPU，直接 park（和 SynchronousQueue 的做法一样）
+    private static final int SPIN_TRIES = Runtime.getRuntime().availableProcessors() < 2 ? 0 : 512;
+    private static final int YIELD_TRIES = SPIN_TRIES == 0 ? 0 : SPIN_TRIES + 16;
+
+    private static final class Slot {
+        final AtomicLong state = new AtomicLong();
+        Object value;
+        Throwable failure;
+        volatile Thread waiter;
+    }
+
+    private final Slot[] slots;
+    private final int mask;
+    private final int indexBits;
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    ReplySlots(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of 2: " + capacity);
+        }
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.indexBits = Integer.numberOfTrailingZeros(capacity);
+    }
+
+    /**
+     * 借一个空闲槽位给当前线程等待
+     *
+     * @return 关联 id，所有槽位都被占用时返回 -1
+     */
+    long acquire() {
+        for (int i = 0; i < slots.length; i++) {
+            int index = cursor.getAndIncrement() & mask;
+            Slot slot = slots[index];
+            long state = slot.state.get();
+            if ((state & 3) == FREE) {
+                long generation = (state >>> 2) + 1;
+                if (slot.state.compareAndSet(state, generation << 2 | PENDING)) {
+                    slot.waiter = Thread.currentThread();
+                    return generation << indexBits | index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    boolean complete(long correlationId, Object value) {
+        return finish(correlationId, value, null);
+    }
+
+    boolean fail(long correlationId, Throwable failure) {
+        return finish(correlationId, null, failure);
+    }
+
+    private boolean finish(long correlationId, Object value, Throwable failure) {
+        Slot slot = slots[(int) (correlationId & mask)];
+        long generation = correlationId >>> indexBits;
+        // 代数和阶段一起 CAS：已超时释放、或已被重新借出的槽位都不会被旧应答写进去
+        if (!slot.state.compareAndSet(generation << 2 | PENDING, generation << 2 | COMPLETING)) {
+            return false;
+        }
+        slot.value = value;
+        slot.failure = failure;
+        slot.state.set(generation << 2 | DONE);
+        Thread waiter = slot.waiter;
+        if (waiter != null) {
+            LockSupport.unpark(waiter);
+        }
+        return true;
+    }
+
+    /**
+     * 等待应答并归还槽位，只能由 acquire 的那个线程调用
+     */
+    Object await(long correlationId, long timeoutNanos)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        Slot slot = slots[(int) (correlationId & mask)];
+        long generation = correlationId >>> indexBits;
+        long done = generation << 2 | DONE;
+        long deadline = System.nanoTime() + timeoutNanos;
+        int tries = 0;
+        try {
+            while (slot.state.get() != done) {
+                if (Thread.interrupted()) {
+                    if (cancel(slot, generation)) {
+                        throw new InterruptedException();
+                    }
+                    Thread.currentThread().interrupt();  // 应答已经在写了，保留中断标记，继续等结果
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    if (cancel(slot, generation)) {
+                        throw new TimeoutException("no reply within " + timeoutNanos + " ns");
+                    }
+                    continue;
+                }
+                if (++tries < SPIN_TRIES) {
+                    continue;
+                }
+                if (tries < YIELD_TRIES) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(this, remaining);
+                }
+            }
+            if (slot.failure != null) {
+                throw new ExecutionException(slot.failure);
+            }
+            return slot.value;
+        } finally {
+            release(slot, generation);
+        }
+    }
+
+    /**
+     * 消息没能发出去时直接归还槽位
+     */
+    void abandon(long correlationId) {
+        Slot slot = slots[(int) (correlationId & mask)];
+        long generation = correlationId >>> indexBits;
+        while (!cancel(slot, generation) && slot.state.get() != (generation << 2 | DONE)) {
+            Thread.yield();  // 应答正在写，等它写完
+        }
+        release(slot, generation);
+    }
+
+    // 放弃等待：只有还处于 PENDING 时才能成功，成功后迟到的应答都会被丢弃
+    private boolean cancel(Slot slot, long generation) {
+        return slot.state.compareAndSet(generation << 2 | PENDING, generation << 2 | DONE);
+    }
+
+    private void release(Slot slot, long generation) {
+        slot.value = null;
+        slot.failure = null;
+        slot.waiter = null;
+        slot.state.set(generation << 2 | FREE);
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+}
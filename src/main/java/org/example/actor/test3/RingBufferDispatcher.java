@@ -0,0 +1,201 @@
+package org.example.actor.test3;
+
+import org.example.log.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BooleanSupplier;
+
+/***
+ *  Disruptor 风格的 dispatcher：预分配 2 的幂个槽位，生产者按序号抢占槽位，固定数量的工作线程按序号领取
+ *  与 DefaultDispatcher 的 ThreadPoolExecutor 相比，交接一个 actor 只需要两次 CAS，不分配队列节点，
+ *  也不经过锁和条件变量（除非选了 blocking 等待策略）
+ *  Actor 的单次调度保证同一个 actor 最多占一个槽位，环的大小不小于活跃 actor 数时所有交接都走环；
+ *  环满时放进一个无锁的溢出队列，不能原地等待——工作线程自己也会 dispatch（重新调度 actor），等待会把所有线程卡死
+ */
+public class RingBufferDispatcher implements Dispatcher {
+    private static final Logger LOG = Logger.getLogger(RingBufferDispatcher.class);
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024;
+    public static final int DEFAULT_THREADS = 8;
+    // 每个工作线程每领这么多次先看一眼溢出队列；环一直不空时溢出队列里的 actor 也不会饿死
+    private static final int OVERFLOW_POLL_MASK = 8 - 1;
+
+    private static final class Slot {
+        private static final AtomicLongFieldUpdater<Slot> SEQUENCE =
+                AtomicLongFieldUpdater.newUpdater(Slot.class, "sequence");
+
+        volatile long sequence;
+        Actor actor;
+
+        Slot(long sequence) {
+            this.sequence = sequence;
+        }
+    }
+
+    // 生产者和消费者的游标分别被不同的线程频繁修改，前后补齐一个缓存行，避免伪共享
+    @SuppressWarnings("unused")
+    private static final class Sequence extends AtomicLong {
+        private static final long serialVersionUID = 1L;
+
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    private final Slot[] ring;
+    private final int mask;
+    private final Sequence claimSequence = new Sequence();
+    private final Sequence workSequence = new Sequence();
+    private final ConcurrentLinkedQueue<Actor> overflow = new ConcurrentLinkedQueue<>();
+    private final WaitStrategy waitStrategy;
+    private final BooleanSupplier hasWork = this::hasWork;
+    private final Thread[] workers;
+    // 领不到任务、正在等待策略里空转或等待的线程数，只在空闲状态切换时改一次
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+
+    public RingBufferDispatcher() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_THREADS, WaitStrategy.parking());
+    }
+
+    public RingBufferDispatcher(WaitStrategy waitStrategy) {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_THREADS, waitStrategy);
+    }
+
+    /**
+     * @param bufferSize 槽位数，必须是 2 的幂
+     * @param threads    工作线程数
+     */
+    public RingBufferDispatcher(int bufferSize, int threads, WaitStrategy waitStrategy) {
+        if (bufferSize <= 0 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize must be a power of 2: " + bufferSize);
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.ring = new Slot[bufferSize];
+        this.mask = bufferSize - 1;
+        for (int i = 0; i < bufferSize; i++) {
+            ring[i] = new Slot(i);
+        }
+        this.waitStrategy = waitStrategy;
+        this.workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::workLoop, "ring-dispatcher-" + i);
+            worker.setDaemon(true);
+            workers[i] = worker;
+            worker.start();
+        }
+    }
+
+    @Override
+    public void dispatch(Actor actor) {
+        long seq = claimSequence.get();
+        for (;;) {
+            Slot slot = ring[(int) (seq & mask)];
+            long diff = slot.sequence - seq;
+            if (diff == 0) {
+                if (claimSequence.compareAndSet(seq, seq + 1)) {
+                    slot.actor = actor;
+                    // 发布必须是 volatile 写：blocking 等待策略随后要读 signalNeeded，lazySet 之后的读可能被重排到它前面，丢掉唤醒
+                    slot.sequence = seq + 1;
+                    waitStrategy.signal();
+                    return;
+                }
+                seq = claimSequence.get();
+            } else if (diff < 0) {
+                // 环满了（活跃 actor 比槽位多），actor 已经处于 SCHEDULED，不能丢
+                overflow.offer(actor);
+                waitStrategy.signal();
+                return;
+            } else {
+                seq = claimSequence.get();
+            }
+        }
+    }
+
+    private Actor take(boolean overflowFirst) {
+        if (overflowFirst) {
+            Actor actor = overflow.poll();
+            if (actor != null) {
+                return actor;
+            }
+        }
+        long seq = workSequence.get();
+        for (;;) {
+            Slot slot = ring[(int) (seq & mask)];
+            long diff = slot.sequence - (seq + 1);
+            if (diff == 0) {
+                if (workSequence.compareAndSet(seq, seq + 1)) {
+                    Actor actor = slot.actor;
+                    slot.actor = null;
+                    Slot.SEQUENCE.lazySet(slot, seq + ring.length);  // 还给下一圈的生产者
+                    return actor;
+                }
+                seq = workSequence.get();
+            } else if (diff < 0) {
+                return overflow.poll();
+            } else {
+                seq = workSequence.get();
+            }
+        }
+    }
+
+    private boolean hasWork() {
+        long seq = workSequence.get();
+        return ring[(int) (seq & mask)].sequence == seq + 1 || !overflow.isEmpty();
+    }
+
+    private void workLoop() {
+        int idleCount = 0;
+        int takes = 0;
+        boolean idle = false;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Actor actor = take((++takes & OVERFLOW_POLL_MASK) == 0);
+                if (actor == null) {
+                    if (!idle) {
+                        idle = true;
+                        idleWorkers.incrementAndGet();
+                    }
+                    idleCount = waitStrategy.idle(idleCount, hasWork);
+                    continue;
+                }
+                if (idle) {
+                    idle = false;
+                    idleWorkers.decrementAndGet();
+                }
+                idleCount = 0;
+                try {
+                    actor.run();
+                } catch (Throwable e) {
+                    LOG.error("Actor [" + actor.getName() + "] run failed", e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // 工作线程在等待策略里响应中断退出，环里还没领走的 actor 不再执行
+    @Override
+    public void shutdown() {
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        return workers.length;
+    }
+
+    @Override
+    public int getActiveThreads() {
+        return Math.max(0, workers.length - idleWorkers.get());
+    }
+
+    public int getBufferSize() {
+        return ring.length;
+    }
+}
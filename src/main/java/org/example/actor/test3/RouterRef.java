@@ -0,0 +1,79 @@
+package org.example.actor.test3;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/***
+ *  路由 ref：对调用方来说和普通 ActorRef 一样用，消息由 RoutingLogic 分给背后的一组 routee
+ *  由 ActorSystem.registerRouter 创建；routee 各自有信箱，各自串行执行，彼此之间并行
+ */
+public class RouterRef extends ActorRef {
+    private final String name;
+    private final ActorSystem system;
+    private final RoutingLogic logic;
+    private final Actor[] routees;
+    private final List<ActorRef> routeeRefs;
+
+    RouterRef(String name, ActorSystem system, RoutingLogic logic, Actor[] routees, ActorRef[] routeeRefs) {
+        super(null);
+        this.name = name;
+        this.system = system;
+        this.logic = logic;
+        this.routees = routees;
+        this.routeeRefs = Collections.unmodifiableList(Arrays.asList(routeeRefs));
+    }
+
+    @Override
+    boolean deliver(Message message) {
+        return logic.route(message, routees);
+    }
+
+    // 批量消息逐条路由，不同的消息可能落到不同的 routee
+    @Override
+    int deliverAll(List<Message> batch) {
+        int accepted = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (deliver(batch.get(i))) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    // 广播要复制信封，池化信封由哪个 routee 回收说不清，所以路由 ref 不用信封池
+    @Override
+    boolean isMessagePooling() {
+        return false;
+    }
+
+    @Override
+    ActorSystem system() {
+        return system;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 所有 routee 信箱中的消息数之和，近似值
+     */
+    @Override
+    public int mailboxSize() {
+        int size = 0;
+        for (Actor routee : routees) {
+            size += routee.getMailbox().size();
+        }
+        return size;
+    }
+
+    Actor[] routees() {
+        return routees;
+    }
+
+    public List<ActorRef> getRoutees() {
+        return routeeRefs;
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.actor.test3;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/***
+ *  RouterRef 把一条消息投给哪个（哪些）routee
+ *  roundRobin         一个原子计数器轮流分发
+ *  smallestMailbox    优先投给信箱为空的 routee，否则投给积压最少的；只读信箱状态，不加锁
+ *  consistentHashing  按消息的 key 做 jump consistent hash，同一个 key 总是落到同一个 routee，适合分片状态
+ *  senderThread       按发送线程做一致性哈希，同一个线程总是写同一个 routee，线程之间不争用信箱
+ *  broadcast          每个 routee 各一份
+ *  scatterGather      ask / request 发给所有 routee，取最先到的应答，所有副本都失败了才算失败；tell 按轮询分发
+ */
+public interface RoutingLogic {
+
+    /**
+     * 在调用方线程上执行，可能被多个线程同时调用
+     *
+     * @return 至少有一个 routee 收下了这条消息
+     */
+    boolean route(Message message, Actor[] routees);
+
+    static RoutingLogic roundRobin() {
+        return new RoundRobin();
+    }
+
+    static RoutingLogic smallestMailbox() {
+        return new SmallestMailbox();
+    }
+
+    /**
+     * key 取类型化消息的 value，无类型消息取 payload 的 hashCode
+     */
+    static RoutingLogic consistentHashing() {
+        return new ConsistentHashing(message -> message.type != Message.UNTYPED
+                ? message.value
+                : message.payload == null ? 0 : message.payload.hashCode());
+    }
+
+    static RoutingLogic consistentHashing(ToLongFunction<Message> key) {
+        return new ConsistentHashing(key);
+    }
+
+    static RoutingLogic senderThread() {
+        return new ConsistentHashing(message -> Thread.currentThread().getId());
+    }
+
+    static RoutingLogic broadcast() {
+        return new Broadcast();
+    }
+
+    static RoutingLogic scatterGather() {
+        return new ScatterGather();
+    }
+
+    final class RoundRobin implements RoutingLogic {
+        private final AtomicLong next = new AtomicLong();
+
+        @Override
+        public boolean route(Message message, Actor[] routees) {
+            int i = (int) ((next.getAndIncrement() & Long.MAX_VALUE) % routees.length);
+            return routees[i].enqueue(message);
+        }
+    }
+
+    final class SmallestMailbox implements RoutingLogic {
+        @Override
+        public boolean route(Message message, Actor[] routees) {
+            int n = routees.length;
+            // 从随机位置开始找，避免所有发送方在平局时都挤到第一个 routee 上
+            int start = ThreadLocalRandom.current().nextInt(n);
+            int best = start;
+            int bestSize = Integer.MAX_VALUE;
+            for (int k = 0; k < n; k++) {
+                int i = (start + k) % n;
+                Mailbox mailbox = routees[i].getMailbox();
+                if (mailbox.isEmpty()) {
+                    best = i;
+                    break;
+                }
+                // 各信箱的 size 都是 O(1) 的近似值，只有没找到空信箱时才读
+                int size = mailbox.size();
+                if (size < bestSize) {
+                    best = i;
+                    bestSize = size;
+                }
+            }
+            return routees[best].enqueue(message);
+        }
+    }
+
+    final class ConsistentHashing implements RoutingLogic {
+        private final ToLongFunction<Message> key;
+
+        ConsistentHashing(ToLongFunction<Message> key) {
+            this.key = key;
+        }
+
+        @Override
+        public boolean route(Message message, Actor[] routees) {
+            return routees[jumpHash(mix(key.applyAsLong(message)), routees.length)].enqueue(message);
+        }
+
+        // Lamping & Veach 的 jump consistent hash：不需要哈希环，O(log n) 次迭代，routee 数变化时只有 1/n 的 key 换位置
+        static int jumpHash(long key, int buckets) {
+            long b = -1;
+            long j = 0;
+            while (j < buckets) {
+                b = j;
+                key = key * 2862933555777941757L + 1;
+                j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+            }
+            return (int) b;
+        }
+
+        // 先把 key 打散，连续的小整数 key 也能分布均匀
+        private static long mix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+
+    final class Broadcast implements RoutingLogic {
+        @Override
+        public boolean route(Message message, Actor[] routees) {
+            boolean accepted = false;
+            // 先投副本，原信封最后投：它一旦进了信箱就可能被处理掉
+            for (int i = routees.length - 1; i > 0; i--) {
+                accepted |= routees[i].enqueue(message.copy());
+            }
+            return routees[0].enqueue(message) | accepted;
+        }
+    }
+
+    final class ScatterGather implements RoutingLogic {
+        private final RoutingLogic oneWay = new RoundRobin();
+
+        @Override
+        public boolean route(Message message, Actor[] routees) {
+            if (!message.expectsReply()) {
+                return oneWay.route(message, routees);
+            }
+            // 副本共用同一个 future / 应答槽位，两者都只接受第一次完成，后到的应答被丢掉；
+            // 失败要计数，一个 routee 信箱满了或已停止不能让整个请求失败
+            message.gatherRemaining = new AtomicInteger(routees.length);
+            boolean accepted = false;
+            // 先投副本，原信封最后投：它一旦进了信箱就可能被处理掉
+            for (int i = routees.length - 1; i >= 0; i--) {
+                Message m = i == 0 ? message : message.copy();
+                if (routees[i].enqueue(m)) {
+                    accepted = true;
+                } else {
+                    // 信箱拒收时不一定回复过失败（比如数组信箱满了），这里补一次，重复的会被忽略
+                    m.replyFailure(new MailboxOverflowException("routee " + routees[i].getName() + " did not accept the message"));
+                }
+            }
+            return accepted;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.actor.test3;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
+
+/***
+ *  一个逻辑实体拆成 N 个分片 actor：写消息按 key 或按发送线程落到某一个分片，互不争用同一个信箱
+ *  query 认定的读消息（比如 get）发给所有分片，各分片的应答用 aggregator 两两合并后回给调用方
+ *  其余消息即使需要应答也只落到一个分片，否则 ask 一次写会被每个分片各执行一遍
+ *  适合计数器、累加器这类可以拆开再合并的状态；由 ActorSystem.registerSharded 创建
+ */
+public class ShardedRef extends RouterRef {
+    private final Predicate<Message> query;
+    private final BinaryOperator<Object> aggregator;
+
+    ShardedRef(String name, ActorSystem system, RoutingLogic logic, Actor[] shards, ActorRef[] shardRefs,
+               Predicate<Message> query, BinaryOperator<Object> aggregator) {
+        super(name, system, logic, shards, shardRefs);
+        this.query = query;
+        this.aggregator = aggregator;
+    }
+
+    @Override
+    boolean deliver(Message message) {
+        if (!message.expectsReply() || !query.test(message)) {
+            return super.deliver(message);
+        }
+        gather(message);
+        return true;
+    }
+
+    // 每个分片一份带独立 future 的副本，全部回来后合并，再走原消息的应答通道（future 或应答槽位）
+    private void gather(Message message) {
+        CompletableFuture<Object> result = null;
+        for (Actor shard : routees()) {
+            Message part = message.copy();
+            part.replySlots = null;
+            part.correlationId = 0;
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            part.future = future;
+            if (!shard.enqueue(part)) {
+                future.completeExceptionally(new MailboxOverflowException("shard " + shard.getName() + " is full"));
+            }
+            result = result == null ? future : result.thenCombine(future, aggregator);
+        }
+        result.whenComplete((value, failure) -> {
+            if (failure == null) {
+                message.reply(value);
+            } else {
+                message.replyFailure(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause()
+                        : failure);
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.actor.test3;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ *  按引用计数共享的固定线程池：每个 dispatcher 创建时 acquire、shutdown 时 release，最后一个引用释放才真正关掉线程池
+ *  反复创建、关闭 ActorSystem 的基准测试只会用到同一组线程，不会越攒越多；全部释放后再 acquire 会新建一个池
+ */
+final class SharedThreadPool {
+    private final String name;
+    private final int threads;
+    private final AtomicInteger generation = new AtomicInteger();
+    private ThreadPoolExecutor pool;
+    private int refs;
+
+    SharedThreadPool(String name, int threads) {
+        this.name = name;
+        this.threads = threads;
+    }
+
+    synchronized ThreadPoolExecutor acquire() {
+        if (pool == null) {
+            pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), threadFactory(generation.getAndIncrement()));
+        }
+        refs++;
+        return pool;
+    }
+
+    // 关闭时已经排队的任务照常执行完
+    synchronized void release(ThreadPoolExecutor released) {
+        if (released == pool && --refs == 0) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    synchronized int getRefs() {
+        return refs;
+    }
+
+    private ThreadFactory threadFactory(int gen) {
+        AtomicInteger index = new AtomicInteger();
+        return r -> new Thread(r, name + "-" + gen + "-" + index.getAndIncrement());
+    }
+}
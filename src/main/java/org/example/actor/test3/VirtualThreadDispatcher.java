@@ -0,0 +1,92 @@
+package org.example.actor.test3;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ *  给会在 receive 里做阻塞 I/O 的 actor 用：每次调度跑在一个新的虚拟线程上，阻塞时只挂起虚拟线程，
+ *  载体线程可以继续跑别的 actor，少数阻塞的 actor 不会再拖住整个 ActorSystem
+ *  项目仍按 Java 8 编译，虚拟线程执行器在运行时通过反射获取；
+ *  JVM 不支持（低于 21，或 19/20 没开 preview）时退回到固定大小的守护线程池，和虚拟线程一样不会拦着 JVM 退出
+ */
+public class VirtualThreadDispatcher implements Dispatcher {
+
+    public static final int DEFAULT_FALLBACK_THREADS = 8;
+
+    private final ExecutorService pool;
+    private final boolean virtual;
+
+    public VirtualThreadDispatcher() {
+        this(DEFAULT_FALLBACK_THREADS);
+    }
+
+    /**
+     * @param fallbackThreads 不支持虚拟线程时使用的平台线程数
+     */
+    public VirtualThreadDispatcher(int fallbackThreads) {
+        ExecutorService virtualPool = newVirtualThreadPerTaskExecutor();
+        this.virtual = virtualPool != null;
+        this.pool = virtual ? virtualPool : Executors.newFixedThreadPool(fallbackThreads, daemonThreadFactory());
+    }
+
+    @Override
+    public void dispatch(Actor actor) {
+        pool.execute(actor);
+    }
+
+    @Override
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // 虚拟线程每次调度一个新线程，没有线程池可统计，两个指标都返回 -1
+    @Override
+    public int getPoolSize() {
+        return virtual ? -1 : ((ThreadPoolExecutor) pool).getPoolSize();
+    }
+
+    @Override
+    public int getActiveThreads() {
+        return virtual ? -1 : ((ThreadPoolExecutor) pool).getActiveCount();
+    }
+
+    /**
+     * 当前是否真的在用虚拟线程
+     */
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    private static ThreadFactory daemonThreadFactory() {
+        AtomicInteger index = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, "virtual-fallback-" + index.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        ExecutorService probe = newVirtualThreadPerTaskExecutor();
+        if (probe == null) {
+            return false;
+        }
+        probe.shutdown();
+        return true;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;  // Java 21 之前没有这个方法
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;  // 19/20 没有 --enable-preview 时会抛 UnsupportedOperationException
+        }
+    }
+}
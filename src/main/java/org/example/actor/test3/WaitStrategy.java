@@ -0,0 +1,149 @@
+package org.example.actor.test3;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/***
+ *  RingBufferDispatcher 工作线程没活干时的等待方式，延迟和 CPU 占用之间的取舍
+ *  busySpin  最低延迟，一直占着一个核
+ *  yielding  先自旋再 Thread.yield，延迟低，空闲时仍然比较耗 CPU
+ *  parking   自旋、yield 之后 parkNanos 小睡，空闲时几乎不占 CPU，唤醒延迟在几十微秒
+ *  blocking  锁 + 条件变量，空闲时完全不占 CPU，生产者只有在确实有线程睡着时才去加锁唤醒
+ */
+public interface WaitStrategy {
+
+    /**
+     * 工作线程没有取到任务时调用
+     *
+     * @param idleCount 连续空转的次数，取到任务后调用方会重置为 0
+     * @param hasWork   环里是否又有任务了
+     * @return 下一次调用时传入的 idleCount
+     */
+    int idle(int idleCount, BooleanSupplier hasWork) throws InterruptedException;
+
+    /**
+     * 生产者发布任务之后调用
+     */
+    void signal();
+
+    static WaitStrategy busySpin() {
+        return new BusySpin();
+    }
+
+    static WaitStrategy yielding() {
+        return new Yielding();
+    }
+
+    static WaitStrategy parking() {
+        return new Parking(100_000L);
+    }
+
+    static WaitStrategy parking(long parkNanos) {
+        return new Parking(parkNanos);
+    }
+
+    static WaitStrategy blocking() {
+        return new Blocking();
+    }
+
+    final class BusySpin implements WaitStrategy {
+        @Override
+        public int idle(int idleCount, BooleanSupplier hasWork) {
+            return idleCount + 1;
+        }
+
+        @Override
+        public void signal() {
+        }
+    }
+
+    final class Yielding implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+
+        @Override
+        public int idle(int idleCount, BooleanSupplier hasWork) {
+            if (idleCount >= SPIN_TRIES) {
+                Thread.yield();
+            }
+            return idleCount + 1;
+        }
+
+        @Override
+        public void signal() {
+        }
+    }
+
+    final class Parking implements WaitStrategy {
+        private static final int SPIN_TRIES = 100;
+        private static final int YIELD_TRIES = 200;
+
+        private final long parkNanos;
+
+        Parking(long parkNanos) {
+            this.parkNanos = parkNanos;
+        }
+
+        @Override
+        public int idle(int idleCount, BooleanSupplier hasWork) throws InterruptedException {
+            if (idleCount < SPIN_TRIES) {
+                return idleCount + 1;
+            }
+            if (idleCount < YIELD_TRIES) {
+                Thread.yield();
+                return idleCount + 1;
+            }
+            LockSupport.parkNanos(this, parkNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return idleCount;
+        }
+
+        @Override
+        public void signal() {
+        }
+    }
+
+    final class Blocking implements WaitStrategy {
+        // 兜底的最长等待时间：万一哪条发布路径没有先于读标志可见，最多晚这么久被发现，而不是永远睡下去
+        private static final long MAX_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        // 有线程准备睡眠时才置位，生产者大多数时候只需要读一下这个标志
+        private final AtomicBoolean signalNeeded = new AtomicBoolean();
+
+        @Override
+        public int idle(int idleCount, BooleanSupplier hasWork) throws InterruptedException {
+            lock.lock();
+            try {
+                // 先置标志再检查，和生产者“先发布再看标志”配合，不会丢唤醒；
+                // 前提是两边都是 volatile 写后 volatile 读（生产者的发布不能是 lazySet，否则读标志可能被重排到发布之前）
+                signalNeeded.set(true);
+                while (!hasWork.getAsBoolean()) {
+                    notEmpty.awaitNanos(MAX_WAIT_NANOS);
+                    signalNeeded.set(true);
+                }
+            } finally {
+                lock.unlock();
+            }
+            return 0;
+        }
+
+        @Override
+        public void signal() {
+            if (signalNeeded.get() && signalNeeded.getAndSet(false)) {
+                lock.lock();
+                try {
+                    notEmpty.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package org.example.actor.test3;
+
+import org.example.log.Logger;
+
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/***
+ *  工作窃取 dispatcher：每个工作线程有自己的双端队列，不再所有线程争一个全局任务队列
+ *  派发时优先选择：
+ *    1. 上次执行这个 actor 的线程，前提是它现在空闲（actor 的状态大概率还在它的缓存里）
+ *    2. 当前线程本身，如果它就是本 dispatcher 的工作线程（actor 给别的 actor 发消息，消息刚写进本核缓存）
+ *    3. 轮询选一个线程
+ *  自己的队列空了就从别的线程的队列尾部偷，都没有活干时 park，派发方负责 unpark
+ */
+public class WorkStealingDispatcher implements Dispatcher {
+    private static final Logger LOG = Logger.getLogger(WorkStealingDispatcher.class);
+
+    private static final int SPIN_TRIES = 64;
+    private static final long PARK_NANOS = 1_000_000L;  // 兜底的超时，正常情况下靠 unpark 唤醒
+
+    private final Worker[] workers;
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final AtomicInteger idleWorkers = new AtomicInteger();
+
+    public WorkStealingDispatcher() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public WorkStealingDispatcher(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be positive: " + threads);
+        }
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(i);
+        }
+        for (Worker worker : workers) {
+            worker.start();
+        }
+    }
+
+    @Override
+    public void dispatch(Actor actor) {
+        Worker target = selectWorker(actor);
+        target.queue.offerLast(actor);
+        if (target.idle) {
+            LockSupport.unpark(target);
+        } else if (idleWorkers.get() > 0) {
+            // 目标线程正忙，叫醒一个空闲线程来偷
+            for (Worker worker : workers) {
+                if (worker.idle) {
+                    LockSupport.unpark(worker);
+                    break;
+                }
+            }
+        }
+    }
+
+    private Worker selectWorker(Actor actor) {
+        int home = actor.getAffinity();
+        if (home >= 0 && home < workers.length && workers[home].idle) {
+            return workers[home];
+        }
+        Thread current = Thread.currentThread();
+        if (current instanceof Worker && ((Worker) current).owner() == this) {
+            return (Worker) current;
+        }
+        return workers[(nextWorker.getAndIncrement() & Integer.MAX_VALUE) % workers.length];
+    }
+
+    private Actor steal(int self) {
+        int n = workers.length;
+        int start = ThreadLocalRandom.current().nextInt(n);
+        for (int i = 0; i < n; i++) {
+            int victim = (start + i) % n;
+            if (victim != self) {
+                Actor actor = workers[victim].queue.pollLast();
+                if (actor != null) {
+                    return actor;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean hasWork() {
+        for (Worker worker : workers) {
+            if (!worker.queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getThreads() {
+        return workers.length;
+    }
+
+    // 队列里还没执行的 actor 不再执行
+    @Override
+    public void shutdown() {
+        for (Worker worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public int getPoolSize() {
+        return workers.length;
+    }
+
+    /**
+     * 没有 park 的线程都算活跃，包括还在自旋找活的线程
+     */
+    @Override
+    public int getActiveThreads() {
+        return Math.max(0, workers.length - idleWorkers.get());
+    }
+
+    private final class Worker extends Thread {
+        private final int index;
+        // 自己从头部取（先进先出，和 ForkJoinPool 的 async 模式一样），别人从尾部偷
+        private final ConcurrentLinkedDeque<Actor> queue = new ConcurrentLinkedDeque<>();
+        private volatile boolean idle;
+
+        Worker(int index) {
+            super("work-stealing-dispatcher-" + index);
+            this.index = index;
+            setDaemon(true);
+        }
+
+        WorkStealingDispatcher owner() {
+            return WorkStealingDispatcher.this;
+        }
+
+        @Override
+        public void run() {
+            int idleCount = 0;
+            while (!isInterrupted()) {
+                Actor actor = queue.pollFirst();
+                if (actor == null) {
+                    actor = steal(index);
+                }
+                if (actor != null) {
+                    idleCount = 0;
+                    actor.setAffinity(index);
+                    try {
+                        actor.run();
+                    } catch (Throwable e) {
+                        LOG.error("Actor [" + actor.getName() + "] run failed", e);
+                    }
+                    continue;
+                }
+                if (++idleCount < SPIN_TRIES) {
+                    continue;
+                }
+                // 先宣布空闲再检查队列；派发方是先入队再看 idle，两边至少有一方能看到对方
+                idle = true;
+                idleWorkers.incrementAndGet();
+                if (!hasWork()) {
+                    LockSupport.parkNanos(this, PARK_NANOS);
+                }
+                idleWorkers.decrementAndGet();
+                idle = false;
+            }
+        }
+    }
+}
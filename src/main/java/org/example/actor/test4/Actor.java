@@ -1,13 +1,47 @@
 package org.example.actor.test4;
 
+import org.example.actor.DeadLetterOffice;
+import org.example.log.Logger;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /***
  *  增加了错误处理
+ *  出错后交给监督者（父 actor 的 supervisorStrategy，顶层 actor 则是 ActorSystem 的）决定恢复、重启、停止还是上报
+ *  重启、恢复、停止都作为系统消息投递，由 actor 自己的线程在处理普通消息之前执行，不会和 receive 并发
  */
 public abstract class Actor implements Runnable {
+    private static final Logger LOG = Logger.getLogger(Actor.class);
+
+    // 调度状态：只有 IDLE -> SCHEDULED 这一次迁移才会把 actor 交给 dispatcher
+    private static final int IDLE = 0;
+    private static final int SCHEDULED = 1;
+    private static final int RUNNING = 2;
+
+    // 单次调度最多处理的消息数，处理完就让出线程，避免热点 actor 长期霸占线程池
+    public static final int DEFAULT_THROUGHPUT = 100;
+
     private final LinkedBlockingQueue<Message> mailbox = new LinkedBlockingQueue<>();
+    // 系统消息（重启、恢复、停止），挂起时也照常处理
+    private final ConcurrentLinkedQueue<Runnable> systemMailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger state = new AtomicInteger(IDLE);
+    private volatile int throughput = DEFAULT_THROUGHPUT;
+    // 挂起期间信箱照收消息，但不处理，等重启或恢复
+    private volatile boolean suspended;
+    private volatile boolean stopped;
+    private final List<Actor> children = new CopyOnWriteArrayList<>();
+    private volatile Actor parent;
+    // 当前时间窗口内的重启次数，由 recordRestart 在锁内维护
+    private int restartCount;
+    private long restartWindowStart;
+    // 重启时恢复到的状态：注册时取一次，之后 actor 可以用 checkpoint 更新
+    private Object snapshot;
     private ActorSystem system;
+    private ActorRef self;
     private String name;
 
     public void setSystem(ActorSystem system) {
@@ -18,27 +52,248 @@ public abstract class Actor implements Runnable {
         this.name = name;
     }
 
+    void setSelf(ActorRef self) {
+        this.self = self;
+    }
+
+    void setParent(Actor parent) {
+        this.parent = parent;
+    }
+
+    public void setThroughput(int throughput) {
+        if (throughput <= 0) {
+            throw new IllegalArgumentException("throughput must be positive: " + throughput);
+        }
+        this.throughput = throughput;
+    }
+
+    public int getThroughput() {
+        return throughput;
+    }
+
     public void enqueue(Message msg) {
+        if (stopped) {
+            reject(msg);
+            return;
+        }
         mailbox.offer(msg);
-        system.getDispatcher().dispatch(this); // 交由 dispatcher 执行
+        if (!suspended) {
+            schedule();
+        }
+    }
+
+    // 注册时、还没有任何消息之前调用
+    void captureInitialState() {
+        this.snapshot = snapshotState();
+    }
+
+    /**
+     * 把当前状态记为重启时的恢复点，只能在处理消息时（actor 自己的线程上）调用
+     */
+    protected final void checkpoint() {
+        this.snapshot = snapshotState();
+    }
+
+    /**
+     * 创建一个由当前 actor 监督的子 actor
+     */
+    public ActorRef spawn(String name, Actor child) {
+        return system.register(name, child, this);
+    }
+
+    /**
+     * 子 actor 失败时的处理策略，覆盖它来定制
+     */
+    protected SupervisorStrategy supervisorStrategy() {
+        return SupervisorStrategy.defaultStrategy();
+    }
+
+    // 已经在排队或正在执行时不再重复提交，保证同一时刻只有一个线程在处理这个 actor
+    private void schedule() {
+        if (state.compareAndSet(IDLE, SCHEDULED)) {
+            try {
+                system.getDispatcher().dispatch(this); // 交由 dispatcher 执行
+            } catch (RuntimeException e) {
+                state.set(IDLE);
+                throw e;
+            }
+        }
+    }
+
+    private void sendSystem(Runnable systemMessage) {
+        systemMailbox.offer(systemMessage);
+        schedule();
+    }
+
+    // 以下几个方法由监督者调用
+
+    // 置位后当前这条消息处理完就停下；子 actor 一起挂起
+    void suspend() {
+        suspended = true;
+        for (Actor child : children) {
+            child.suspend();
+        }
+    }
+
+    void resume() {
+        sendSystem(() -> {
+            suspended = false;
+            for (Actor child : children) {
+                child.resume();
+            }
+        });
+    }
+
+    void restart(Throwable cause) {
+        sendSystem(() -> doRestart(cause));
+    }
+
+    void stop() {
+        sendSystem(this::doStop);
+    }
+
+    /**
+     * 记录一次重启
+     *
+     * @return 当前时间窗口内的第几次重启，超过策略上限时返回 -1
+     */
+    synchronized int recordRestart(SupervisorStrategy strategy) {
+        long now = System.currentTimeMillis();
+        if (now - restartWindowStart > strategy.getWithinMillis()) {
+            restartWindowStart = now;
+            restartCount = 0;
+        }
+        restartCount++;
+        if (strategy.getMaxRestarts() >= 0 && restartCount > strategy.getMaxRestarts()) {
+            return -1;
+        }
+        return restartCount;
+    }
+
+    private void doRestart(Throwable cause) {
+        if (stopped) {
+            return;
+        }
+        // 就地重启：同一个对象、同一个 ActorRef、同一个信箱，只把状态换回快照，不用重新注册
+        try {
+            preRestart(cause);
+            if (snapshot != null) {
+                restoreState(snapshot);
+            }
+            postRestart(cause);
+        } catch (Throwable e) {
+            LOG.error("Actor [" + name + "] restart hook failed", e);
+        }
+        for (Actor child : children) {
+            child.restart(cause);
+        }
+        suspended = false;
+    }
+
+    private void doStop() {
+        if (stopped) {
+            return;
+        }
+        stopped = true;
+        suspended = false;
+        for (Actor child : children) {
+            child.stop();
+        }
+        rejectAll();
+        Actor p = parent;
+        if (p != null) {
+            p.children.remove(this);
+        }
+        system.unregister(name, self, this);
+        try {
+            postStop();
+        } catch (Throwable e) {
+            LOG.error("Actor [" + name + "] postStop failed", e);
+        }
+    }
+
+    private void rejectAll() {
+        Message msg;
+        while ((msg = mailbox.poll()) != null) {
+            reject(msg);
+        }
+    }
+
+    // 停止之后的消息没有人处理了，记为死信，ask 直接以失败结束
+    private void reject(Message msg) {
+        system.getDeadLetters().publish(DeadLetterOffice.Reason.STOPPED, name, msg);
+        if (msg.future != null) {
+            msg.future.completeExceptionally(new IllegalStateException("Actor [" + name + "] is stopped"));
+        }
     }
 
     public abstract void receive(Message message);
 
     // 🔴 新增：可选的错误处理钩子
     public void onError(Throwable e, Message message) {
-        System.err.println("Actor [" + name + "] error: " + e.getMessage());
+        LOG.warn("Actor [{}] error: {}", name, e.getMessage());
+    }
+
+    /**
+     * 返回一份不会再被修改的状态副本，默认 null 表示没有需要恢复的状态
+     */
+    protected Object snapshotState() {
+        return null;
+    }
+
+    /**
+     * 重启时在 preRestart 之后、postRestart 之前调用，参数是最近一次的快照；同一份快照可能被用来恢复多次，不要修改它
+     */
+    protected void restoreState(Object snapshot) {
+    }
+
+    /**
+     * 重启前调用，在 actor 自己的线程上执行，可以在这里释放资源
+     */
+    protected void preRestart(Throwable reason) {
+    }
+
+    /**
+     * 重启后、处理下一条消息之前调用；没有用快照的 actor 可以在这里把状态恢复到初始值
+     */
+    protected void postRestart(Throwable reason) {
+    }
+
+    protected void postStop() {
     }
 
     @Override
     public void run() {
-        Message msg;
-        while ((msg = mailbox.poll()) != null) {
-            try {
-                receive(msg);
-            } catch (Throwable e) {
-                onError(e, msg); // 调用本地钩子
-                system.handleActorFailure(this, e); // 🔴 通知 system
+        if (!state.compareAndSet(SCHEDULED, RUNNING)) {
+            return;
+        }
+        try {
+            Runnable systemMessage;
+            while ((systemMessage = systemMailbox.poll()) != null) {
+                systemMessage.run();
+            }
+            if (stopped) {
+                rejectAll();  // 停止前后并发投进来的消息
+                return;
+            }
+            int limit = throughput;
+            Message msg;
+            while (!suspended && limit-- > 0 && (msg = mailbox.poll()) != null) {
+                try {
+                    receive(msg);
+                } catch (Throwable e) {
+                    if (msg.future != null) {
+                        msg.future.completeExceptionally(e); // 处理失败的 ask 直接告诉调用方，不让它干等
+                    }
+                    onError(e, msg); // 调用本地钩子
+                    system.handleActorFailure(this, e); // 🔴 通知 system，由监督者决定怎么处理
+                }
+            }
+        } finally {
+            state.set(IDLE);
+            // 配额用完时剩下的消息，以及最后一次 poll 之后到达的消息，都靠这里重新排到线程池队尾
+            if (!systemMailbox.isEmpty() || (!suspended && !mailbox.isEmpty())) {
+                schedule();
             }
         }
     }
@@ -46,4 +301,24 @@ public abstract class Actor implements Runnable {
     public String getName() {
         return name;
     }
+
+    public ActorSystem getSystem() {
+        return system;
+    }
+
+    Actor getParent() {
+        return parent;
+    }
+
+    List<Actor> getChildren() {
+        return children;
+    }
+
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
 }
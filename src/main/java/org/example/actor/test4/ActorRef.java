@@ -1,7 +1,10 @@
 package org.example.actor.test4;
 
+import org.example.actor.MessageType;
+import org.example.actor.TimeoutFuture;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 
 public class ActorRef {
@@ -15,12 +18,26 @@ public class ActorRef {
         actor.enqueue(Message.oneWay(msg, sender));
     }
 
+    public void tell(MessageType type, long value, ActorRef sender) {
+        actor.enqueue(Message.typed(type, value, sender));
+    }
+
     public CompletableFuture<Object> ask(Object msg, ActorRef sender) {
         CompletableFuture<Object> future = new CompletableFuture<>();
         actor.enqueue(Message.ask(msg, sender, future));
         return future;
     }
 
+    /**
+     * 带超时的 ask：actor 崩溃或者一直不回复时，调用方最多等 timeout
+     * 超时由 ActorSystem 的时间轮统一管理，不会为每次调用单独排一个定时任务
+     */
+    public CompletableFuture<Object> ask(Object msg, ActorRef sender, long timeout, TimeUnit unit) {
+        TimeoutFuture<Object> future = TimeoutFuture.schedule(actor.getSystem().getTimer(), timeout, unit);
+        actor.enqueue(Message.ask(msg, sender, future));
+        return future;
+    }
+
     public String getName() {
         return actor.getName();
     }
@@ -1,12 +1,30 @@
 package org.example.actor.test4;
 
 
+import org.example.actor.DeadLetterOffice;
+import org.example.actor.HashedWheelTimer;
+import org.example.log.Level;
+import org.example.log.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 
 public class ActorSystem {
+    private static final Logger LOG = Logger.getLogger(ActorSystem.class);
+
     private final Map<String, ActorRef> actors = new ConcurrentHashMap<>();
+    // 顶层 actor，由 ActorSystem 自己监督
+    private final List<Actor> topLevel = new CopyOnWriteArrayList<>();
     private final Dispatcher dispatcher;
+    // 所有带超时的 ask 和重启退避共用一个时间轮，第一次用到时才启动线程
+    private final HashedWheelTimer timer = new HashedWheelTimer("actor-system-timer");
+    private final DeadLetterOffice deadLetters = new DeadLetterOffice("actor-system");
+    private volatile SupervisorStrategy supervisorStrategy = SupervisorStrategy.defaultStrategy();
 
     public ActorSystem(Dispatcher dispatcher) {
         this.dispatcher = dispatcher;
@@ -16,21 +34,135 @@ public class ActorSystem {
         return dispatcher;
     }
 
+    public HashedWheelTimer getTimer() {
+        return timer;
+    }
+
+    public DeadLetterOffice getDeadLetters() {
+        return deadLetters;
+    }
+
+    /**
+     * 顶层 actor 的监督策略
+     */
+    public void setSupervisorStrategy(SupervisorStrategy supervisorStrategy) {
+        this.supervisorStrategy = supervisorStrategy;
+    }
+
     public ActorRef register(String name, Actor actor) {
+        return register(name, actor, null);
+    }
+
+    ActorRef register(String name, Actor actor, Actor parent) {
         actor.setSystem(this);
         actor.setName(name);
+        actor.setParent(parent);
         ActorRef ref = new ActorRef(actor);
+        actor.setSelf(ref);
+        actor.captureInitialState();
         actors.put(name, ref);
+        (parent != null ? parent.getChildren() : topLevel).add(actor);
         return ref;
     }
 
+    // actor 停止后调用；名字已经被新注册的 actor 占用时不动
+    void unregister(String name, ActorRef ref, Actor actor) {
+        actors.remove(name, ref);
+        topLevel.remove(actor);
+    }
+
     public ActorRef get(String name) {
         return actors.get(name);
     }
 
-    // 🔴 新增：默认的容错处理逻辑
+    /**
+     * 按名字投递，名字不存在（或 actor 已停止并注销）时记为死信
+     *
+     * @return 找到收件人时返回 true
+     */
+    public boolean tell(String name, Object msg, ActorRef sender) {
+        ActorRef ref = actors.get(name);
+        if (ref == null) {
+            deadLetters.publish(DeadLetterOffice.Reason.UNKNOWN_RECIPIENT, name, msg);
+            return false;
+        }
+        ref.tell(msg, sender);
+        return true;
+    }
+
+    // 🔴 新增：默认的容错处理逻辑，在失败的 actor 自己的线程上调用
     public void handleActorFailure(Actor actor, Throwable e) {
-        System.err.println("[ActorSystem] Actor [" + actor.getName() + "] failed with error: " + e);
-        // 可拓展为：重启、告警、杀死、替换等策略
+        supervise(actor, e);
+    }
+
+    /**
+     * @return 最终执行的处理方式；ESCALATE 时是上一级给出的结果
+     */
+    private Directive supervise(Actor actor, Throwable e) {
+        LOG.warn("Actor [{}] failed with error: {}", actor.getName(), e);
+        Actor parent = actor.getParent();
+        SupervisorStrategy strategy = parent != null ? parent.supervisorStrategy() : supervisorStrategy;
+        Directive directive = strategy.decide(e);
+        switch (directive) {
+            case RESUME:
+                break;  // 出错的那条消息已经丢掉了，接着处理下一条
+            case RESTART:
+                int restarts = actor.recordRestart(strategy);
+                if (restarts < 0) {
+                    LOG.log(Level.ERROR, "Actor [{}] exceeded {} restarts within {}ms, stopping",
+                            actor.getName(), strategy.getMaxRestarts(), strategy.getWithinMillis());
+                    stopAll(affected(strategy, actor));
+                    break;
+                }
+                List<Actor> targets = affected(strategy, actor);
+                for (Actor target : targets) {
+                    target.suspend();  // 退避期间消息留在信箱里，重启后接着处理
+                }
+                long delay = strategy.backoffMillis(restarts);
+                if (delay == 0) {
+                    restartAll(targets, e);
+                } else {
+                    timer.newTimeout(() -> restartAll(targets, e), delay, TimeUnit.MILLISECONDS);
+                }
+                break;
+            case STOP:
+                stopAll(affected(strategy, actor));
+                break;
+            case ESCALATE:
+                actor.suspend();
+                if (parent == null) {
+                    LOG.warn("Actor [{}] escalated to the top, stopping", actor.getName());
+                    actor.stop();
+                    return Directive.STOP;
+                }
+                // 父 actor 重启或停止时会连带处理它的子 actor；恢复只是让父 actor 接着处理消息，挂起的子 actor 要单独恢复
+                Directive applied = supervise(parent, e);
+                if (applied == Directive.RESUME) {
+                    actor.resume();
+                }
+                return applied;
+        }
+        return directive;
+    }
+
+    // allForOne 时连同兄弟 actor 一起处理
+    private List<Actor> affected(SupervisorStrategy strategy, Actor failed) {
+        if (!strategy.isAllForOne()) {
+            return Collections.singletonList(failed);
+        }
+        Actor parent = failed.getParent();
+        return new ArrayList<>(parent != null ? parent.getChildren() : topLevel);
+    }
+
+    private static void restartAll(List<Actor> targets, Throwable cause) {
+        for (Actor target : targets) {
+            target.restart(cause);
+        }
+    }
+
+    private static void stopAll(List<Actor> targets) {
+        for (Actor target : targets) {
+            target.stop();
+        }
     }
 }
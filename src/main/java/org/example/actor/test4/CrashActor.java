@@ -1,18 +1,50 @@
 package org.example.actor.test4;
 
 
+import org.example.actor.MessageType;
+import org.example.log.Logger;
+
 public class CrashActor extends Actor {
+    private static final Logger LOG = Logger.getLogger(CrashActor.class);
+
+    private long received;
+
     @Override
     public void receive(Message message) {
-        if ("boom".equals(message.payload)) {
-            throw new RuntimeException("Simulated crash!");
-        } else {
-            System.out.println("Received: " + message.payload);
+        received++;
+        switch (message.type) {
+            case MessageType.CRASH_ID:
+                throw new RuntimeException("Simulated crash!");
+            case Message.UNTYPED:
+                // 兼容原来的字符串协议
+                if ("boom".equals(message.payload)) {
+                    throw new RuntimeException("Simulated crash!");
+                }
+                LOG.debug("Received: {}", message.payload);
+                break;
+            default:
+                LOG.debug("Received: {}", message);  // 自定义操作码不在 MessageType 里，交给 Message.toString 处理
         }
     }
 
+    // 快照就是一个计数，重启后从 0 重新数
+    @Override
+    protected Object snapshotState() {
+        return received;
+    }
+
+    @Override
+    protected void restoreState(Object snapshot) {
+        received = (Long) snapshot;
+    }
+
+    @Override
+    protected void postRestart(Throwable reason) {
+        LOG.info("restarted after: {}, received = {}", reason.getMessage(), received);
+    }
+
     @Override
     public void onError(Throwable e, Message message) {
-        System.out.println("[CrashActor] handled error: " + e.getMessage());
+        LOG.info("handled error: {}", e.getMessage());
     }
 }
@@ -0,0 +1,15 @@
+package org.example.actor.test4;
+
+/***
+ *  监督者对失败的 actor 给出的处理方式
+ */
+public enum Directive {
+    // 丢掉出错的那条消息，状态不动，继续处理后面的消息
+    RESUME,
+    // 退避一段时间后在原对象上重启，信箱保留，ActorRef 不变
+    RESTART,
+    // 停掉这个 actor 和它的子 actor，信箱里剩下的 ask 以失败结束
+    STOP,
+    // 交给上一级监督者处理，相当于父 actor 自己失败了
+    ESCALATE
+}
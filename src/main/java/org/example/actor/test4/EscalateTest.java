@@ -0,0 +1,56 @@
+package org.example.actor.test4;
+
+import org.example.log.Logger;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/***
+ * 子 actor 出错上报给父 actor，父 actor 的监督者决定恢复，子 actor 应该接着处理后面的消息
+ */
+public class EscalateTest {
+    private static final Logger LOG = Logger.getLogger(EscalateTest.class);
+
+    public static void main(String[] args) throws Exception {
+        // 守护线程，跑完 main 就退出
+        ExecutorService pool = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "escalate-test");
+            t.setDaemon(true);
+            return t;
+        });
+        ActorSystem system = new ActorSystem(pool::submit);
+        system.setSupervisorStrategy(SupervisorStrategy.oneForOne(-1, 0, e -> Directive.RESUME));
+
+        CountDownLatch processed = new CountDownLatch(1);
+        Actor parent = new Actor() {
+            @Override
+            public void receive(Message message) {
+            }
+
+            @Override
+            protected SupervisorStrategy supervisorStrategy() {
+                return SupervisorStrategy.oneForOne(-1, 0, e -> Directive.ESCALATE);
+            }
+        };
+        system.register("parent", parent);
+        ActorRef child = parent.spawn("child", new Actor() {
+            @Override
+            public void receive(Message message) {
+                if ("boom".equals(message.payload)) {
+                    throw new RuntimeException("Simulated crash!");
+                }
+                processed.countDown();
+            }
+        });
+
+        child.tell("boom", null);
+        child.tell("after", null);
+
+        if (!processed.await(2, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("escalated child was not resumed");
+        }
+        LOG.info("escalated child resumed and processed the next message");
+    }
+}
@@ -1,14 +1,28 @@
 package org.example.actor.test4;
 
 
+import org.example.actor.MessageType;
+
 import java.util.concurrent.CompletableFuture;
 
 public class Message {
+    // type 的取值：没有操作码，按 payload 处理
+    public static final int UNTYPED = -1;
+
     public final Object payload;
     public final ActorRef sender;
     public final CompletableFuture<Object> future;  // 用于 ask 模式
+    // 类型化协议：操作码取自 MessageType 的 id，数值参数放在 value 里，不用装箱
+    public final int type;
+    public final long value;
 
     public Message(Object payload, ActorRef sender, CompletableFuture<Object> future) {
+        this(UNTYPED, 0, payload, sender, future);
+    }
+
+    public Message(int type, long value, Object payload, ActorRef sender, CompletableFuture<Object> future) {
+        this.type = type;
+        this.value = value;
         this.payload = payload;
         this.sender = sender;
         this.future = future;
@@ -18,7 +32,21 @@ public class Message {
         return new Message(payload, sender, null);
     }
 
+    public static Message typed(MessageType type, long value, ActorRef sender) {
+        return new Message(type.getMessageId(), value, null, sender, null);
+    }
+
     public static Message ask(Object payload, ActorRef sender, CompletableFuture<Object> future) {
         return new Message(payload, sender, future);
     }
+
+    @Override
+    public String toString() {
+        if (type == UNTYPED) {
+            return String.valueOf(payload);
+        }
+        // typed(int, ...) 可以带枚举之外的自定义操作码，死信日志和失败信息里都会打印它，这里不能抛异常
+        String op = type >= 0 && type < MessageType.size() ? MessageType.fromMessageId(type).getNote() : "op" + type;
+        return op + "(" + value + ")";
+    }
 }
@@ -0,0 +1,89 @@
+package org.example.actor.test4;
+
+import java.util.function.Function;
+
+/***
+ *  父 actor（顶层 actor 则是 ActorSystem）怎么处理子 actor 的失败
+ *  oneForOne  只处理失败的那个子 actor
+ *  allForOne  失败的子 actor 连同它的兄弟一起处理，适合彼此状态有关联、必须一起重来的一组 actor
+ *  重启按指数退避延迟执行，避免一条坏消息让 actor 在失败、重启之间空转；时间窗口内重启次数超过上限就直接停掉
+ */
+public final class SupervisorStrategy {
+    public static final int DEFAULT_MAX_RESTARTS = 10;
+    public static final long DEFAULT_WITHIN_MILLIS = 60_000L;
+    public static final long DEFAULT_MIN_BACKOFF_MILLIS = 10L;
+    public static final long DEFAULT_MAX_BACKOFF_MILLIS = 5_000L;
+
+    private static final SupervisorStrategy DEFAULT =
+            oneForOne(DEFAULT_MAX_RESTARTS, DEFAULT_WITHIN_MILLIS, e -> Directive.RESTART);
+
+    private final boolean allForOne;
+    private final int maxRestarts;
+    private final long withinMillis;
+    private final long minBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Function<Throwable, Directive> decider;
+
+    private SupervisorStrategy(boolean allForOne, int maxRestarts, long withinMillis,
+                               long minBackoffMillis, long maxBackoffMillis, Function<Throwable, Directive> decider) {
+        if (minBackoffMillis < 0 || maxBackoffMillis < minBackoffMillis) {
+            throw new IllegalArgumentException("invalid backoff: " + minBackoffMillis + ".." + maxBackoffMillis);
+        }
+        this.allForOne = allForOne;
+        this.maxRestarts = maxRestarts;
+        this.withinMillis = withinMillis;
+        this.minBackoffMillis = minBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.decider = decider;
+    }
+
+    /**
+     * 一分钟内最多重启 10 次的 oneForOne，所有异常都重启
+     */
+    public static SupervisorStrategy defaultStrategy() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param maxRestarts  withinMillis 时间窗口内允许的重启次数，超过后改为 STOP；小于 0 表示不限
+     * @param decider      根据异常给出处理方式，返回 null 按 ESCALATE 处理
+     */
+    public static SupervisorStrategy oneForOne(int maxRestarts, long withinMillis, Function<Throwable, Directive> decider) {
+        return new SupervisorStrategy(false, maxRestarts, withinMillis,
+                DEFAULT_MIN_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS, decider);
+    }
+
+    public static SupervisorStrategy allForOne(int maxRestarts, long withinMillis, Function<Throwable, Directive> decider) {
+        return new SupervisorStrategy(true, maxRestarts, withinMillis,
+                DEFAULT_MIN_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS, decider);
+    }
+
+    /**
+     * 第 n 次重启前等待 minMillis * 2^(n-1)，最多 maxMillis；minMillis 为 0 时立即重启
+     */
+    public SupervisorStrategy withBackoff(long minMillis, long maxMillis) {
+        return new SupervisorStrategy(allForOne, maxRestarts, withinMillis, minMillis, maxMillis, decider);
+    }
+
+    Directive decide(Throwable e) {
+        Directive directive = decider.apply(e);
+        return directive != null ? directive : Directive.ESCALATE;
+    }
+
+    boolean isAllForOne() {
+        return allForOne;
+    }
+
+    int getMaxRestarts() {
+        return maxRestarts;
+    }
+
+    long getWithinMillis() {
+        return withinMillis;
+    }
+
+    long backoffMillis(int restarts) {
+        long delay = minBackoffMillis << Math.min(Math.max(restarts - 1, 0), 30);
+        return Math.min(delay, maxBackoffMillis);
+    }
+}
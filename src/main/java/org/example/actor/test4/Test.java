@@ -1,5 +1,6 @@
 package org.example.actor.test4;
 
+import org.example.actor.MessageType;
 
 public class Test {
     public static void main(String[] args) throws Exception {
@@ -9,6 +10,8 @@ public class Test {
         ref.tell("hello", null);
         ref.tell("boom", null);     // 会抛异常但主线程不会挂
         ref.tell("world", null);
+        ref.tell(MessageType.Product, 3, null);
+        ref.tell(MessageType.Crash, 0, null);  // 类型化的崩溃消息
 
         Thread.sleep(1000); // 等待异步输出
     }
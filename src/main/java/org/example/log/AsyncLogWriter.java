@@ -0,0 +1,193 @@
+package org.example.log;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/***
+ *  所有 Logger 共用的异步写出器：调用方只在预分配的无锁环里占一个槽位、填几个引用，不碰 PrintStream 的锁
+ *  一个后台 daemon 线程批量取出、格式化，攒成一整块再写一次 stdout / stderr
+ *  环满时新记录直接丢弃并计数，调用方永远不会被日志阻塞
+ */
+final class AsyncLogWriter implements Runnable {
+    static final int DEFAULT_CAPACITY = 8192;
+    // 一次最多取这么多条再写出，避免持续高峰时 StringBuilder 无限变大
+    private static final int MAX_BATCH = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    static final AsyncLogWriter INSTANCE = new AsyncLogWriter(DEFAULT_CAPACITY, System.out, System.err);
+
+    private final LogRecord[] ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // 只有写线程推进，volatile 是为了 flush 能读到
+    private volatile long head;
+    private final LongAdder dropped = new LongAdder();
+    private final PrintStream out;
+    private final PrintStream err;
+    private final StringBuilder outBuffer = new StringBuilder(4096);
+    private final StringBuilder errBuffer = new StringBuilder(1024);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    private AsyncLogWriter(int capacity, PrintStream out, PrintStream err) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1) << 1);
+        this.ring = new LogRecord[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            ring[i] = new LogRecord(i);
+        }
+        this.out = out;
+        this.err = err;
+        this.thread = new Thread(this, "async-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+        // 退出前把环里剩下的写完
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "async-log-writer-shutdown"));
+    }
+
+    boolean publish(Level level, String logger, String format, int argc, int longMask,
+                    Object o0, Object o1, Object o2, long l0, long l1, long l2, Throwable error) {
+        LogRecord r;
+        long t;
+        for (;;) {
+            t = tail.get();
+            r = ring[(int) (t & mask)];
+            long seq = r.sequence;
+            if (seq < t) {
+                dropped.increment();  // 写线程跟不上，丢掉这条
+                return false;
+            }
+            if (seq > t) {
+                continue;  // 别的生产者刚占了这个位置
+            }
+            if (tail.compareAndSet(t, t + 1)) {
+                break;
+            }
+        }
+        r.timeMillis = System.currentTimeMillis();
+        r.level = level;
+        r.logger = logger;
+        r.thread = Thread.currentThread().getName();
+        r.format = format;
+        r.argc = argc;
+        r.longMask = longMask;
+        r.objects[0] = o0;
+        r.objects[1] = o1;
+        r.objects[2] = o2;
+        r.longs[0] = l0;
+        r.longs[1] = l1;
+        r.longs[2] = l2;
+        r.error = error;
+        r.sequence = t + 1;  // 发布给写线程
+        return true;
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 等到调用这一刻之前发布的记录都写出去
+     *
+     * @return 超时前写完返回 true
+     */
+    boolean flush(long timeout, TimeUnit unit) {
+        long target = tail.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (head < target) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(100_000L);
+        }
+        return true;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+        while (drain() > 0) {
+            // 关闭时写完剩余记录
+        }
+    }
+
+    private void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int drain() {
+        int n = 0;
+        long h = head;
+        while (n < MAX_BATCH) {
+            LogRecord r = ring[(int) (h & mask)];
+            if (r.sequence != h + 1) {
+                break;
+            }
+            format(r, r.level.compareTo(Level.WARN) >= 0 ? errBuffer : outBuffer);
+            r.clear();
+            r.sequence = h + ring.length;  // 槽位还给生产者
+            h++;
+            n++;
+        }
+        if (n > 0) {
+            write(outBuffer, out);
+            write(errBuffer, err);
+            head = h;
+        }
+        return n;
+    }
+
+    private static void write(StringBuilder buffer, PrintStream stream) {
+        if (buffer.length() > 0) {
+            stream.print(buffer);
+            stream.flush();
+            buffer.setLength(0);
+        }
+    }
+
+    private static void format(LogRecord r, StringBuilder sb) {
+        TIME.formatTo(Instant.ofEpochMilli(r.timeMillis), sb);
+        sb.append(" [").append(r.thread).append("] ").append(r.level).append(' ').append(r.logger).append(" - ");
+        String f = r.format;
+        int from = 0;
+        for (int i = 0; i < r.argc; i++) {
+            int at = f.indexOf("{}", from);
+            if (at < 0) {
+                break;
+            }
+            sb.append(f, from, at);
+            if ((r.longMask & (1 << i)) != 0) {
+                sb.append(r.longs[i]);
+            } else {
+                sb.append(r.objects[i]);
+            }
+            from = at + 2;
+        }
+        sb.append(f, from, f.length()).append(System.lineSeparator());
+        if (r.error != null) {
+            StringWriter trace = new StringWriter();
+            r.error.printStackTrace(new PrintWriter(trace));
+            sb.append(trace);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.log;
+
+/***
+ *  日志级别，低于 Logger.getLevel() 的记录在调用方线程上就直接丢掉，不进环、不装箱、不格式化
+ */
+public enum Level {
+    DEBUG,
+    INFO,
+    WARN,
+    ERROR,
+    OFF
+}
@@ -0,0 +1,37 @@
+package org.example.log;
+
+/***
+ *  环里的一个槽位，预先分配、反复复用；参数按原样存放，格式化推迟到写线程
+ *  long 参数放在 longs 里并在 longMask 里记一位，数值参数不用装箱
+ */
+final class LogRecord {
+    static final int MAX_ARGS = 3;
+
+    // Vyukov 有界队列的槽位序号：等于 tail 时可写，等于 tail + 1 时可读
+    volatile long sequence;
+
+    long timeMillis;
+    Level level;
+    String logger;
+    String thread;
+    String format;
+    int argc;
+    int longMask;
+    final Object[] objects = new Object[MAX_ARGS];
+    final long[] longs = new long[MAX_ARGS];
+    Throwable error;
+
+    LogRecord(long sequence) {
+        this.sequence = sequence;
+    }
+
+    void clear() {
+        logger = null;
+        thread = null;
+        format = null;
+        error = null;
+        for (int i = 0; i < MAX_ARGS; i++) {
+            objects[i] = null;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.log;
+
+import java.util.concurrent.TimeUnit;
+
+/***
+ *  异步日志：消息模板里的 {} 按顺序替换成参数，替换和 toString 都在后台写线程上做
+ *  调用方只做一次级别判断和一次入环；long 参数走单独的重载，不会装箱
+ *  传 Object 参数的调用在级别关闭时仍然要付装箱的代价，热点路径上可以先判断 isDebugEnabled
+ *  全局级别默认 INFO，可以用 -Dorg.example.log.level=DEBUG 或 setLevel 调整
+ */
+public final class Logger {
+
+    private static volatile Level threshold = parseLevel(System.getProperty("org.example.log.level"));
+
+    private final String name;
+
+    private Logger(String name) {
+        this.name = name;
+    }
+
+    public static Logger getLogger(Class<?> type) {
+        return new Logger(type.getSimpleName());
+    }
+
+    public static Logger getLogger(String name) {
+        return new Logger(name);
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    /**
+     * 等待此前的日志全部写出，基准测试计时前后或退出前调用
+     */
+    public static boolean flush(long timeout, TimeUnit unit) {
+        return AsyncLogWriter.INSTANCE.flush(timeout, unit);
+    }
+
+    /**
+     * 因为环满被丢弃的条数
+     */
+    public static long getDropped() {
+        return AsyncLogWriter.INSTANCE.getDropped();
+    }
+
+    private static Level parseLevel(String value) {
+        if (value == null) {
+            return Level.INFO;
+        }
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return Level.INFO;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(Level.DEBUG);
+    }
+
+    public void log(Level level, String format) {
+        if (isEnabled(level)) {
+            AsyncLogWriter.INSTANCE.publish(level, name, format, 0, 0, null, null, null, 0, 0, 0, null);
+        }
+    }
+
+    public void log(Level level, String format, Object arg) {
+        if (isEnabled(level)) {
+            AsyncLogWriter.INSTANCE.publish(level, name, format, 1, 0, arg, null, null, 0, 0, 0, null);
+        }
+    }
+
+    public void log(Level level, String format, long arg) {
+        if (isEnabled(level)) {
+            AsyncLogWriter.INSTANCE.publish(level, name, format, 1, 0b1, null, null, null, arg, 0, 0, null);
+        }
+    }
+
+    public void log(Level level, String format, Object arg1, Object arg2) {
+        if (isEnabled(level)) {
+            AsyncLogWriter.INSTANCE.publish(level, name, format, 2, 0, arg1, arg2, null, 0, 0, 0, null);
+        }
+    }
+
+    public void log(Level level, String format, Object arg1, long arg2) {
+        if (isEnabled(level)) {
+            AsyncLogWriter.INSTANCE.publish(level, name, format, 2, 0b10, arg1, null, null, 0, arg2, 0, null);
+        }
+    }
+
+    public void log(Level level, String format, Object arg1, long arg2, long arg3) {
+        if (isEnabled(level)) {
+            AsyncLogWriter.INSTANCE.publish(level, name, format, 3, 0b110, arg1, null, null, 0, arg2, arg3, null);
+        }
+    }
+
+    public void log(Level level, String format, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(level)) {
+            AsyncLogWriter.INSTANCE.publish(level, name, format, 3, 0, arg1, arg2, arg3, 0, 0, 0, null);
+        }
+    }
+
+    public void log(Level level, String message, Throwable error) {
+        if (isEnabled(level)) {
+            AsyncLogWriter.INSTANCE.publish(level, name, message, 0, 0, null, null, null, 0, 0, 0, error);
+        }
+    }
+
+    public void debug(String format) {
+        log(Level.DEBUG, format);
+    }
+
+    public void debug(String format, long arg) {
+        log(Level.DEBUG, format, arg);
+    }
+
+    public void debug(String format, Object arg) {
+        log(Level.DEBUG, format, arg);
+    }
+
+    public void debug(String format, Object arg1, long arg2) {
+        log(Level.DEBUG, format, arg1, arg2);
+    }
+
+    public void debug(String format, Object arg1, long arg2, long arg3) {
+        log(Level.DEBUG, format, arg1, arg2, arg3);
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        log(Level.DEBUG, format, arg1, arg2);
+    }
+
+    public void info(String format) {
+        log(Level.INFO, format);
+    }
+
+    public void info(String format, long arg) {
+        log(Level.INFO, format, arg);
+    }
+
+    public void info(String format, Object arg) {
+        log(Level.INFO, format, arg);
+    }
+
+    public void info(String format, Object arg1, long arg2) {
+        log(Level.INFO, format, arg1, arg2);
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        log(Level.INFO, format, arg1, arg2);
+    }
+
+    public void warn(String format) {
+        log(Level.WARN, format);
+    }
+
+    public void warn(String format, Object arg) {
+        log(Level.WARN, format, arg);
+    }
+
+    public void warn(String format, Object arg1, Object arg2) {
+        log(Level.WARN, format, arg1, arg2);
+    }
+
+    public void warn(String format, Object arg1, Object arg2, Object arg3) {
+        log(Level.WARN, format, arg1, arg2, arg3);
+    }
+
+    public void error(String format, Object arg) {
+        log(Level.ERROR, format, arg);
+    }
+
+    public void error(String message, Throwable error) {
+        log(Level.ERROR, message, error);
+    }
+}
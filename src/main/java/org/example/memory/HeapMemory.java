@@ -1,7 +1,12 @@
 package org.example.memory;// 文件：HeapMemory.java
+import org.example.log.Logger;
+
 import java.util.*;
 
 public class HeapMemory {
+  // 晋升日志在 GC 的锁里打印，走异步日志，不让 stdout 拖长停顿
+  private static final Logger LOG = Logger.getLogger("GC");
+
   private final byte[] eden;
   private final byte[] old;
   private final int TLAB_SIZE = 1024 * 8; // 8KB
@@ -51,7 +56,7 @@ public class HeapMemory {
     ObjectInstance newObj = new ObjectInstance(oldPointer, obj.getSize());
     oldObjects.add(newObj);
     oldPointer += obj.getSize();
-    System.out.println("[GC] Promoted " + obj + " to Old@" + newObj.getAddress());
+    LOG.debug("Promoted {} to Old@{}", obj.toString(), newObj.getAddress());  // ObjectInstance 可变，日志线程格式化前先转成字符串
     return newObj;
   }
 
@@ -96,7 +101,7 @@ public class HeapMemory {
         if (obj.getAge() >= PROMOTION_AGE) {
           ObjectInstance promoted = promoteToOld(obj);
           if (promoted == null) {
-            System.out.println("[GC] Promotion failed - Old space full.");
+            LOG.warn("Promotion failed - Old space full.");
             survivors.add(obj);
             edenPointer += obj.getSize();
           }
@@ -113,7 +118,7 @@ public class HeapMemory {
   }
 
   public synchronized void performGC() {
-    System.out.println("[GC] Performing Mark-Sweep GC...");
+    LOG.info("Performing Mark-Sweep GC...");
     mark();
     sweep();
   }
@@ -1,5 +1,9 @@
 package org.example.memory;
 
+import org.example.log.Logger;
+
+import java.util.concurrent.TimeUnit;
+
 // 文件：Main.java
 public class Main {
   public static void main(String[] args) throws InterruptedException {
@@ -16,6 +20,7 @@ public class Main {
       thread.join();
     }
 
+    Logger.flush(1, TimeUnit.SECONDS);  // 先把 GC 日志写完，免得和下面的输出交错
     System.out.println("[Main] Eden objects remaining after GC: " + heap.getEdenObjects().size());
     heap.printHeapUsage();
   }
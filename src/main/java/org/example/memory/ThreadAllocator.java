@@ -1,7 +1,11 @@
 package org.example.memory;// 文件：ThreadAllocator.java
+import org.example.log.Logger;
+
 import java.util.*;
 
 public class ThreadAllocator extends Thread {
+  private static final Logger LOG = Logger.getLogger(ThreadAllocator.class);
+
   private final HeapMemory heap;
   private final List<ObjectInstance> localRefs = new ArrayList<>();
   private final Random random = new Random();
@@ -18,7 +22,7 @@ public class ThreadAllocator extends Thread {
         heap.performGC();
         obj = heap.allocateInEden(16);
         if (obj == null) {
-          System.out.println(getName() + " - Allocation failed after GC.");
+          LOG.warn("{} - Allocation failed after GC.", getName());
           break;
         }
       }
@@ -36,7 +40,7 @@ public class ThreadAllocator extends Thread {
       if (i % 100 == 0 && !localRefs.isEmpty()) {
         ObjectInstance lost = localRefs.remove(0);
         heap.removeRoot(lost);
-        System.out.println(getName() + " lost reference to " + lost);
+        LOG.debug("{} lost reference to {}", getName(), lost.toString());
       }
     }
   }